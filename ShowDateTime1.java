@@ -5,30 +5,58 @@
   Java class name: ShowDateTime1
   Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL.
 
-  This is a Java 1.4 graphical (GUI) application to display the current date
+  This is a Java 7 graphical (GUI) application to display the current date
   and/or time in a format and location of the user's choice.  Options are given
-  on the command line, and can not be changed while the program is running.
-  The program runs until you close its window, press the Escape key, or click
-  the mouse on its display and choose Exit from the pop-up menu.
+  on the command line, and most can not be changed while the program is
+  running (see the -a option below for those that can).  The program runs
+  until you close its window, press the Escape key, or click the mouse on its
+  display and choose Exit from the pop-up menu.  Some options run without any
+  window: as a time server (-e, -l), to format log files (-i), or to write
+  text or frames to a file (-o, -v).
 
-  The code that updates the date and time has less than twenty lines, because
-  most real work is done by the Java JLabel and SimpleDateFormat classes.  Many
-  more lines parse the options.  You almost have to be a Java programmer to
-  understand these options or how to format the date and time.  Here is a
-  command-line summary, raw and unedited:
+  The date format is compiled into a list of literal text and numeric fields,
+  and only fields that change are rewritten on each clock tick.  Patterns that
+  can't be compiled are given to the Java SimpleDateFormat class.  Text is
+  shown with a JLabel, or drawn directly for the -r option.  The display is
+  not updated on a fixed schedule.  Instead, we find the smallest unit
+  (seconds, minutes, hours, days) in the date format, and sleep until the next
+  real boundary of that unit, so a clock that shows minutes wakes up once per
+  minute, not ten times per second.
+
+  You almost have to be a Java programmer to understand these options or how
+  to format the date and time.  Here is a command-line summary, raw and
+  unedited:
 
       -? = -help = show summary of command-line syntax
+      -a# = more options from file #, one per line; applied when file changes
       -b0 = hide window borders and controls; use full screen if -x1 given
       -b1 = -b = show borders and controls on application window (default)
+      -c# = file with list of clocks, one per line: zone | format | label
       -d# = date and/or time format; see Java SimpleDateFormat description
+      -e# = time server: HTTP server-sent events on port #; no window
       -f# = text font name; example: -fVerdana
+      -g# = screen number from 1 for this window; -ga = one window per screen
+      -i# = format epoch times at start of lines in file #; -i = stdin
+      -j# = number of events to show from -q schedule (default 5)
+      -k# = cache # MB of rendered text images (default 32); for big fonts
+      -l# = time server: lines of text on TCP port #; no window
+      -m# = collect tick statistics (JMX), report on stderr every # seconds
+      -n = start options for another window (copied from previous window)
+      -o# = no window; write text to file # when it changes; -o = stdout
       -p(#,#,#) = panel color or background in RGB; white is -p(255,255,255)
+      -q# = show countdowns to next events in schedule file #, not the time
+      -r# = draw every frame, # per second (default screen refresh); for SSS
       -s# = text font size from 10 to 999 points; example: -s24
       -t(#,#,#) = text color or foreground in RGB; black is -t(0,0,0)
+      -u# = show text from time server # (host:port) instead of our own clock
+      -v# = no window; write frames to # (.png numbered, .rgb, else raw ARGB)
       -w(#,#,#,#) = normal window position: left, top, width, height;
           example: -w(50,50,700,500)
       -x0 = normal or regular window, don't maximize (default)
       -x1 = -x = maximize application window; full screen if -b0 given
+      -y = report startup time to first paint on stderr; -yx = report and exit
+      -z#[,#] = virtual clock for testing: # times real speed, or -zs to step
+          between changes; optional start time: -z60,2026-03-08 01:55
 
   Options containing spaces or punctuation may need to be quoted according to
   your system's command syntax.  Information about the Java 5.0
@@ -49,7 +77,161 @@
 
   Note the <html> and <br> tags to produce multiple lines.  It would take
   another two pages here to summarize the syntax, so please go read the web
-  page instead.
+  page instead.  Text with only <html> and <br> tags is drawn by this program,
+  and only the characters that change are redrawn.  Other HTML tags are
+  allowed, and are given to Java's much slower HTML renderer.
+
+  The -c option puts many clocks in one window, arranged as a grid, for a
+  "world clock" wall.  Each line in the file has a time zone, a date format,
+  and a label, separated by vertical bars (|).  An empty format uses the -d
+  format, and an empty label uses the time zone name.  Blank lines and lines
+  starting with a number sign (#) are ignored.  For example:
+
+      America/New_York | h:mm a | New York
+      Europe/London | | London
+      Asia/Kolkata
+
+  All clocks share one timer and one reading of the system clock per tick.
+  Clocks with the same format share the compiled format.  Only clocks whose
+  text has changed are repainted.  Iconified windows aren't updated, and the
+  timer stops when all windows are iconified.  Clocks are brought up to date
+  when their window is restored.
+
+  Formats with parts of a second (S) are updated only ten times per second by
+  the timer.  The -r option draws clocks for every frame instead, at the
+  screen's refresh rate or at -r# frames per second, with double buffering.
+  Time comes from a smooth clock that never goes backwards.  For example, a
+  full-screen stopwatch-style display on Windows:
+
+      java  ShowDateTime1  -b0 -x1 -r -s120 -dHH:mm:ss.SSS
+
+  One program can show many windows, each with its own options, which saves
+  memory compared to running the program once for each window.  The -n option
+  starts a new window, beginning with a copy of the options so far.  The -g
+  option chooses a screen (monitor) for a window, and the -w position is then
+  relative to that screen.  For example, a clock on each of two screens, the
+  second in red:
+
+      java  ShowDateTime1  -b0 -x1 -g1  -n -g2 -t(255,0,0)
+
+  The -q option shows countdowns to the next few events in a schedule file,
+  such as departures or shift changes, instead of the date and time.  The -j
+  option sets how many events are shown.  Each line in the file has a date
+  and time, and a label, separated by a vertical bar (|).  Times are
+  "yyyy-MM-dd HH:mm" or "yyyy-MM-dd HH:mm:ss" in the local time zone, or
+  milliseconds since 1970.  For example:
+
+      2026-10-17 18:45 | Express to Boston
+      2026-10-17 19:00:30 | Night shift
+
+  Countdowns show days and hours, hours and minutes, or minutes and seconds,
+  depending on how far away the event is, and the display changes only when
+  one of those changes or an event has passed.  The file may have many
+  thousands of events.  It's checked about once a minute, and lines added to
+  the end are read without reading the whole file again.  Countdowns also
+  work with the -o and -v options.
+
+  The -o option writes the date and/or time as lines of text, each time the
+  text changes, instead of showing a window.  This is for status bars and
+  scripts, and works on servers with no graphical display.  A file name may be
+  a named pipe (FIFO).  Simple HTML in the date format is removed, and <br>
+  becomes a space.
+
+  The -l and -e options run a time server instead of showing a window, for
+  many thin displays on a network.  Each different date format is formatted
+  once per tick, and the same text is sent to every client that wants it.
+  Clients on the -l port get one line each time the text changes, and may
+  send a date format pattern as a line of text.  Clients on the -e port are
+  web browsers (or anything else) using HTTP server-sent events, with the
+  pattern in the "d" query parameter.  Without a pattern, clients get the
+  server's -d format.  A window with the -u option shows text from a time
+  server, using its own -d format (but not -c or -r).  For example:
+
+      java  ShowDateTime1  -l7777 -e8080
+      java  ShowDateTime1  -uclockhost:7777 -dHH:mm:ss
+      http://clockhost:8080/?d=HH:mm:ss
+
+  The -v option draws the clock as pixels, with the -f font, -s size, -p and
+  -t colors, and -w width and height, each time the text changes, instead of
+  showing a window.  This works with no display.  Frames go to numbered PNG
+  files if the name ends with ".png", to a raw file of 24-bit RGB pixels if
+  the name ends with ".rgb", or to a raw file of 32-bit ARGB pixels in native
+  byte order otherwise.  Raw files are memory mapped, and only rows that
+  change are written.  They must be regular files, since Java can't map a
+  device such as /dev/fb0 without trying to change its size.  For example:
+
+      java  ShowDateTime1  -w(0,0,320,120) -s48 -v/tmp/clock.argb
+
+  The -a option reads more options for a window from a file, after the
+  command-line options, and watches the file for changes.  The file has one
+  option per line, without quotes, and lines starting with # are ignored.
+  Only -b, -d, -f, -p, -s, -t, -w, and -x are allowed.  When the file is
+  saved, the new options are applied to the window that is already showing:
+  only the date format, font, colors, or position that changed, so there is
+  no blank screen as there would be from starting the program again.  A burst
+  of changes is read once, after the file has been quiet for a moment.  A
+  file with errors is reported and ignored, and the window keeps its current
+  options.  For example, a file named kiosk.txt:
+
+      # kiosk clock
+      -dHH:mm
+      -s120
+      -t(255,255,255)
+      -p(0,0,0)
+
+      java  ShowDateTime1  -b0 -x1 -akiosk.txt
+
+  The -k option keeps images of text that has been shown, up to # megabytes,
+  so that text shown again is copied instead of drawn.  This helps with large
+  fonts on full screens, when the text repeats: HH:mm, dates, or a grid of
+  clocks with the same time.  The oldest images are thrown away first.
+
+  The -i option formats times in large files, such as logs, using the -d
+  format.  Each line that starts with an epoch time (13 digits of milliseconds
+  since 1970, or 10 digits of seconds) and then a space, tab, or comma, has
+  that number replaced by the formatted date and time.  Other lines are copied
+  unchanged.  Output goes to the -o file, or to standard output.  Lines are
+  formatted in parallel chunks, one thread per processor, and written in their
+  original order.  For example:
+
+      java  ShowDateTime1  "-dyyyy-MM-dd HH:mm:ss.SSS" -iapp.log -oapp.txt
+
+  The -m option collects statistics on each clock tick: how late the timer
+  fired after the date or time changed, how long formatting, setText(), and
+  painting took, and how many ticks were wasted or updates lost.  These are
+  available through JMX (for example, with jconsole) as the MBean named
+  "ShowDateTime1:type=Metrics", and are written on standard error every #
+  seconds if -m# is given.
+
+  The -z option is for testing.  It replaces the system clock with a virtual
+  clock, running at # times real speed (-z1000 shows a day in under a minute
+  and a half), or stepping from one change in the text straight to the next
+  (-zs), a tenth of a second apart.  A start time may follow a comma, so that
+  changes to or from daylight saving time, midnight, and leap days can be
+  watched without waiting for them.  For example, the start of daylight
+  saving time in North America, one minute at a time:
+
+      java  ShowDateTime1  "-zs,2026-03-08 01:00" "-dMMM d h:mm a z"
+
+  For soak tests with no window, see ShowDateTime1Bench.java, a separate
+  benchmark program (not in the jar file), which can step a virtual clock
+  through years of ticks and report throughput and memory.
+
+  The -y option reports how long the program took to show the time: from
+  when Java started to main(), to the options being parsed, to the windows
+  being created, and to the first paint (or first -v frame or -o line).  Work
+  that isn't needed to show the time, such as -m statistics and watching -a
+  files, waits until after the first paint.  Most of the time before main()
+  is spent loading classes, which Java 13 and later can share from an archive
+  made by a training run.  The -yx option exits after the first paint, so a
+  training run is short.  The archive belongs to the Java installation that
+  made it, so make it again after updating Java.  For example:
+
+      java -XX:ArchiveClassesAtExit=ShowDateTime1.jsa -jar ShowDateTime1.jar -yx
+      java -XX:SharedArchiveFile=ShowDateTime1.jsa -jar ShowDateTime1.jar -y
+
+  Java 19 and later can make the archive on the first run, if it is missing
+  or out of date, with -XX:+AutoCreateSharedArchive and the same file name.
 
   Apache License or GNU General Public License
   --------------------------------------------
@@ -65,9 +247,14 @@
 
 import java.awt.*;                // older Java GUI support
 import java.awt.event.*;          // older Java GUI event support
+import java.awt.font.*;           // glyph vectors for drawing text
+import java.awt.image.*;          // buffer strategy and images for drawing
+import java.io.*;                 // standard I/O
+import java.net.*;                // sockets for time server and clients
+import java.nio.*;                // byte buffers for time server
+import java.nio.channels.*;       // non-blocking sockets for time server
 import java.text.*;               // number formatting
 import java.util.*;               // calendars, dates, lists, maps, vectors
-import java.util.regex.*;         // regular expressions
 import javax.swing.*;             // newer Java GUI support
 
 public class ShowDateTime1
@@ -80,53 +267,39 @@ public class ShowDateTime1
   static final String PROGRAM_TITLE =
     "Show Current Date or Time in Window - by: Keith Fenske";
   static final int TIMER_DELAY = 100; // 0.100 seconds between status updates
+                                  // ... only for milliseconds in date format
 
   /* class variables */
 
-  static SimpleDateFormat formatDate; // formats date/time as numeric text
-  static JMenuItem menuCancel, menuExit; // menu items for <menuPopup>
-  static JPopupMenu menuPopup;    // pop-up menu invoked by any mouse click
-  static String oldText;          // previous string for date/time text
-  static JLabel outputText;       // text area where we put date and/or time
-  static javax.swing.Timer updateTimer; // timer for updating output text area
+  static long mainMillis;         // clock time when main() started
+  static long mainNanos, parsedNanos, windowsNanos; // startup milestones
+  static boolean startupDone;     // true after first paint, frame, or line
+  static int startupReport;       // copy of -y option for the first paint
 
 /*
   main() method
 
-  We run as a graphical application only.  Set the window layout and then let
-  the graphical interface run the show.
+  Parse the options, then either run one of the modes without a window (time
+  server, batch formatting, text or frame output), or set the window layout
+  and let the graphical interface run the show.
 */
   public static void main(String[] args)
   {
-    ActionListener action;        // our shared action listener
-    boolean borderFlag;           // true if main window has borders, controls
-    String fontName;              // font name for text in output text area
-    int fontSize;                 // point size for text in output text area
     int i;                        // index variable
-    JFrame mainFrame;             // this application's window if GUI
-    boolean maximizeFlag;         // true if we maximize our main window
     boolean mswinFlag;            // true if running on Microsoft Windows
-    Color panelColor, textColor;  // background and foreground colors
-    int windowHeight, windowLeft, windowTop, windowWidth;
-                                  // position and size for <mainFrame>
+    ShowDateTime1Options options; // options for current window
+    Vector<ShowDateTime1Options> windowList; // options for each window
     String word;                  // one parameter from command line
 
     /* Initialize variables used by both console and GUI applications. */
 
-    borderFlag = true;            // by default, window has borders, controls
-    fontName = "Verdana";         // preferred font name for output text area
-    fontSize = 36;                // default point size for output text area
-    formatDate = new SimpleDateFormat(
-      "'<html>'EEE d MMM yyyy'<br>'h:mm:ss a z'</html>'"); // date/time format
-    maximizeFlag = false;         // by default, don't maximize our main window
+    mainMillis = System.currentTimeMillis(); // for the -y startup report
+    mainNanos = System.nanoTime();
+
     mswinFlag = System.getProperty("os.name").startsWith("Windows");
-    oldText = null;               // no previous string for date/time text
-    panelColor = new Color(224, 224, 255); // default background color
-    textColor = new Color(51, 51, 51); // default text color
-    windowHeight = 150;           // default window position and size
-    windowLeft = 100;
-    windowTop = 100;
-    windowWidth = 400;
+    options = new ShowDateTime1Options(); // default options for first window
+    windowList = new Vector<ShowDateTime1Options>(); // windows to create
+    windowList.add(options);
 
     /* Check command-line parameters for options. */
 
@@ -147,55 +320,284 @@ public class ShowDateTime1
         System.exit(0);           // exit application after printing help
       }
 
-      else if (word.equals("-b") || (mswinFlag && word.equals("/b"))
-        || word.equals("-b1") || (mswinFlag && word.equals("/b1")))
+      else if (word.equals("-n") || (mswinFlag && word.equals("/n")))
+      {
+        /* Start another window.  It begins with the same options as the
+        previous window, so only the differences need to be given. */
+
+        options = options.copy();
+        windowList.add(options);
+      }
+      else
+      {
+        try                       // everything else has a value
+        {
+          if (parseOption(options, args[i], mswinFlag) == false)
+            throw new IllegalArgumentException("Option not recognized: "
+              + args[i]);
+        }
+        catch (IllegalArgumentException iae) // bad option or bad value
+        {
+          System.err.println(iae.getMessage());
+          showHelp();             // show help summary
+          System.exit(-1);        // exit application after printing help
+        }
+      }
+    }
+
+    /* Let the graphical interface run the application now.  A time server or
+    text output uses the options for the last window, and nothing from the GUI
+    is loaded.  A virtual clock, for testing, is used by everything that shows
+    the current time. */
+
+    parsedNanos = System.nanoTime(); // for the -y startup report
+    startupReport = options.startupReport;
+
+    if (options.clockSpeed >= 0)  // virtual clock instead of system clock
+      ShowDateTime1Clock.active = new ShowDateTime1Clock(((options.clockStart
+        == 0) ? System.currentTimeMillis() : options.clockStart),
+        options.clockSpeed);
+    if (options.inputFile != null)
+      ShowDateTime1Batch.formatAll(options); // never returns
+    else if ((options.eventPort > 0) || (options.linePort > 0))
+      ShowDateTime1Server.serve(options); // never returns
+    else if (options.exportFile != null)
+      ShowDateTime1Export.exportFrames(options); // never returns
+    else if (options.outputFile != null)
+      ShowDateTime1Stream.streamText(options); // never returns
+    else
+    {
+      if (options.imageCache > 0) // one cache for all windows
+        ShowDateTime1Cache.active = new ShowDateTime1Cache(options.imageCache
+          * 1048576L);
+      ShowDateTime1Window.metricSeconds = options.metricSeconds;
+                                  // statistics start after first paint
+      ShowDateTime1Window.showWindows(windowList);
+      windowsNanos = System.nanoTime(); // for the -y startup report
+      ShowDateTime1Window.startLater(); // may be after first paint
+    }
+
+  } // end of main() method
+
+/*
+  firstShown() method
+
+  Called when the first clock has been painted, the first -v frame written, or
+  the first -o line written, from whatever thread did that.  Only the first
+  call counts.  For the -y option, report how long each step of starting up
+  took, and for -yx, exit so that a training run for class data sharing stops
+  as soon as the classes for showing the time have been loaded.
+*/
+  static synchronized void firstShown()
+  {
+    java.lang.management.RuntimeMXBean bean; // JVM start time
+    long jvmMillis;               // milliseconds from JVM start to main()
+    long now;                     // time of first paint from nanoTime()
+
+    if (startupDone)              // only the first call counts
+      return;
+    startupDone = true;
+    if (startupReport == 0)       // did the user want a report?
+      return;
+
+    now = System.nanoTime();
+    bean = java.lang.management.ManagementFactory.getRuntimeMXBean();
+    jvmMillis = Math.max(0, mainMillis - bean.getStartTime());
+    System.err.println("Startup: first paint "
+      + (jvmMillis + ((now - mainNanos) / 1000000))
+      + " ms after Java started");
+    System.err.println("  Java start to main()  " + jvmMillis + " ms");
+    System.err.println("  options parsed        " + ((parsedNanos
+      - mainNanos) / 1000000) + " ms");
+    if (windowsNanos != 0)        // only if all windows were created first
+      System.err.println("  windows created       " + ((windowsNanos
+        - parsedNanos) / 1000000) + " ms");
+    System.err.println("  first paint           " + ((now - ((windowsNanos
+      != 0) ? windowsNanos : parsedNanos)) / 1000000) + " ms");
+    System.err.println("  classes loaded        " + java.lang.management
+      .ManagementFactory.getClassLoadingMXBean().getLoadedClassCount()
+      + ", class data sharing " + ((System.getProperty("java.vm.info", "")
+      .indexOf("sharing") >= 0) ? "on" : "off"));
+    if (startupReport > 1)        // -yx training run
+      System.exit(0);
+
+  } // end of firstShown() method
+
+// ------------------------------------------------------------------------- //
+
+/*
+  parseNumbers() method
+
+  Parse a list of unsigned integers in parentheses, separated by commas, with
+  optional spaces: "(1,2,3)".  Return the numbers, or null if the syntax is
+  wrong, the count is wrong, or a number has too many digits.  This used to be
+  a regular expression, but parsing by hand doesn't load the regex classes
+  while the program is starting.
+*/
+  static int[] parseNumbers(String text, int count, int digits)
+  {
+    int found;                    // number of digits in current number
+    int i;                        // index into <text>
+    int index;                    // which number is next
+    int[] result;                 // numbers found so far
+
+    i = 0;
+    result = new int[count];
+    while ((i < text.length()) && Character.isWhitespace(text.charAt(i))) i ++;
+    if ((i >= text.length()) || (text.charAt(i ++) != '('))
+      return(null);
+    for (index = 0; index < count; index ++)
+    {
+      while ((i < text.length()) && Character.isWhitespace(text.charAt(i)))
+        i ++;
+      found = 0;
+      while ((i < text.length()) && (text.charAt(i) >= '0')
+        && (text.charAt(i) <= '9'))
+      {
+        result[index] = (result[index] * 10) + (text.charAt(i ++) - '0');
+        found ++;
+      }
+      if ((found == 0) || (found > digits))
+        return(null);
+      while ((i < text.length()) && Character.isWhitespace(text.charAt(i)))
+        i ++;
+      if ((i >= text.length()) || (text.charAt(i ++) != ((index < (count - 1))
+        ? ',' : ')')))
+      {
+        return(null);
+      }
+    }
+    while ((i < text.length()) && Character.isWhitespace(text.charAt(i))) i ++;
+    return((i == text.length()) ? result : null);
+  }
+
+/*
+  parseOption() method
+
+  Set one option other than -? or -n, given with its leading hyphen (or slash
+  on Windows).  Return false if the option isn't recognized.  Bad values throw
+  an IllegalArgumentException with a message for the user, since options may
+  come from the command line or from a file given with -a.
+*/
+  static boolean parseOption(ShowDateTime1Options options, String arg,
+    boolean mswinFlag)
+  {
+    String word = arg.toLowerCase(); // easier to process if consistent case
+
+    if (word.startsWith("-a") || (mswinFlag && word.startsWith("/a")))
+    {
+      /* This option is followed by a file name for more options. */
+
+      if (word.length() <= 2)     // must have a file name
       {
-        borderFlag = true;        // our main window has borders, controls
+        throw new IllegalArgumentException("Missing file name for options: "
+          + arg);
       }
-      else if (word.equals("-b0") || (mswinFlag && word.equals("/b0")))
-        borderFlag = false;       // no borders, controls on main window
+      options.configFile = arg.substring(2); // accept any file name
+    }
+
+    else if (word.equals("-b") || (mswinFlag && word.equals("/b"))
+      || word.equals("-b1") || (mswinFlag && word.equals("/b1")))
+    {
+      options.borderFlag = true;  // our main window has borders, controls
+    }
+    else if (word.equals("-b0") || (mswinFlag && word.equals("/b0")))
+      options.borderFlag = false; // no borders, controls on main window
 
-      else if (word.startsWith("-d") || (mswinFlag && word.startsWith("/d")))
-        formatDate = new SimpleDateFormat(args[i].substring(2));
-                                  // accept anything for date/time format
+    else if (word.startsWith("-c") || (mswinFlag && word.startsWith("/c")))
+      options.clockFile = arg.substring(2); // accept any file name
 
-      else if (word.startsWith("-f") || (mswinFlag && word.startsWith("/f")))
-        fontName = args[i].substring(2); // accept anything for font name
+    else if (word.startsWith("-d") || (mswinFlag && word.startsWith("/d")))
+    {
+      try { options.formatDate = new SimpleDateFormat(arg.substring(2)); }
+      catch (IllegalArgumentException iae) // bad pattern letter or quotes
+      {
+        throw new IllegalArgumentException("Invalid date format: " + arg);
+      }
+    }
 
-      else if (word.startsWith("-p") || (mswinFlag && word.startsWith("/p")))
+    else if (word.startsWith("-e") || (mswinFlag && word.startsWith("/e")))
+    {
+      /* This option is followed by a port number for server-sent events. */
+
+      int port = -1;              // default value is invalid
+      try                         // try to parse remainder as unsigned integer
+      {
+        port = Integer.parseInt(word.substring(2));
+      }
+      catch (NumberFormatException nfe) // if not a number or bad syntax
       {
-        /* This option is followed by a panel color or background in RGB. */
+        port = -1;                // set result to an illegal value
+      }
+      if ((port < 1) || (port > 65535))
+      {
+        throw new IllegalArgumentException(
+          "Port number must be from 1 to 65535: " + arg);
+      }
+      options.eventPort = port;   // serve HTTP events, no window
+    }
 
-        int blue, green, red;     // local variables for color values
-        blue = green = red = -1;  // default color values are invalid
-        Pattern pattern = Pattern.compile(
-          "\\s*\\(\\s*(\\d{1,4})\\s*,\\s*(\\d{1,4})\\s*,\\s*(\\d{1,4})\\s*\\)\\s*");
-        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
-        if (matcher.matches())    // if option has proper syntax
-        {
-          red = Integer.parseInt(matcher.group(1));
-          green = Integer.parseInt(matcher.group(2));
-          blue = Integer.parseInt(matcher.group(3));
-        }
-        else                      // bad syntax or too many digits
+    else if (word.startsWith("-f") || (mswinFlag && word.startsWith("/f")))
+      options.fontName = arg.substring(2); // accept any font name
+
+    else if (word.startsWith("-g") || (mswinFlag && word.startsWith("/g")))
+    {
+      /* This option is followed by a screen number, or "a" for all screens.
+      We don't know how many screens there are yet. */
+
+      int screen = -1;            // default value for screen number
+      if (word.substring(2).equals("a")) // one window on every screen
+        screen = ShowDateTime1Options.ALL_SCREENS;
+      else
+      {
+        try                       // try to parse remainder as unsigned integer
         {
-          blue = green = red = -1; // mark result as invalid
+          screen = Integer.parseInt(word.substring(2));
         }
-        if ((blue < 0) || (blue > 255) || (green < 0) || (green > 255) ||
-          (red < 0) || (red > 255))
+        catch (NumberFormatException nfe) // if not a number or bad syntax
         {
-          System.err.println("Invalid background color: " + args[i]);
-          showHelp();             // show help summary
-          System.exit(-1);        // exit application after printing help
+          screen = -1;            // set result to an illegal value
         }
-        panelColor = new Color(red, green, blue); // use this background color
       }
+      if ((screen < 1) && (screen != ShowDateTime1Options.ALL_SCREENS))
+      {
+        throw new IllegalArgumentException("Invalid screen number: " + arg);
+      }
+      options.screen = screen;    // put window on this screen
+    }
+
+    else if (word.startsWith("-i") || (mswinFlag && word.startsWith("/i")))
+      options.inputFile = arg.substring(2); // accept any file name
+
+    else if (word.startsWith("-j") || (mswinFlag && word.startsWith("/j")))
+    {
+      /* This option is followed by the number of events to show. */
 
-      else if (word.startsWith("-s") || (mswinFlag && word.startsWith("/s")))
+      int number = -1;            // default value is invalid
+      try                         // try to parse remainder as unsigned integer
+      {
+        number = Integer.parseInt(word.substring(2));
+      }
+      catch (NumberFormatException nfe) // if not a number or bad syntax
+      {
+        number = -1;              // set result to an illegal value
+      }
+      if ((number < 1) || (number > 100))
       {
-        /* This option is followed by a font size for the output text area. */
+        throw new IllegalArgumentException(
+          "Number of events must be from 1 to 100: " + arg);
+      }
+      options.scheduleCount = number; // show this many countdowns
+    }
+
+    else if (word.startsWith("-k") || (mswinFlag && word.startsWith("/k")))
+    {
+      /* This option may be followed by the number of megabytes for cached
+      images of labels.  Without a number, a default size is used. */
 
-        int size = -1;            // default value for font point size
+      int size = 32;              // default value for megabytes
+      if (word.length() > 2)
+      {
         try                       // try to parse remainder as unsigned integer
         {
           size = Integer.parseInt(word.substring(2));
@@ -204,165 +606,416 @@ public class ShowDateTime1
         {
           size = -1;              // set result to an illegal value
         }
-        if ((size < 10) || (size > 999))
-        {
-          System.err.println("Invalid font point size " + args[i]);
-          showHelp();             // show help summary
-          System.exit(-1);        // exit application after printing help
-        }
-        fontSize = size;          // use this point size for output text area
       }
+      if ((size < 1) || (size > 4096))
+      {
+        throw new IllegalArgumentException(
+          "Image cache must be from 1 to 4096 megabytes: " + arg);
+      }
+      options.imageCache = size;  // cache rendered images of labels
+    }
+
+    else if (word.startsWith("-l") || (mswinFlag && word.startsWith("/l")))
+    {
+      /* This option is followed by a port number for lines of text over TCP. */
 
-      else if (word.startsWith("-t") || (mswinFlag && word.startsWith("/t")))
+      int port = -1;              // default value is invalid
+      try                         // try to parse remainder as unsigned integer
+      {
+        port = Integer.parseInt(word.substring(2));
+      }
+      catch (NumberFormatException nfe) // if not a number or bad syntax
+      {
+        port = -1;                // set result to an illegal value
+      }
+      if ((port < 1) || (port > 65535))
       {
-        /* This option is followed by a text color or foreground in RGB. */
+        throw new IllegalArgumentException(
+          "Port number must be from 1 to 65535: " + arg);
+      }
+      options.linePort = port;    // serve lines of text, no window
+    }
 
-        int blue, green, red;     // local variables for color values
-        blue = green = red = -1;  // default color values are invalid
-        Pattern pattern = Pattern.compile(
-          "\\s*\\(\\s*(\\d{1,4})\\s*,\\s*(\\d{1,4})\\s*,\\s*(\\d{1,4})\\s*\\)\\s*");
-        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
-        if (matcher.matches())    // if option has proper syntax
-        {
-          red = Integer.parseInt(matcher.group(1));
-          green = Integer.parseInt(matcher.group(2));
-          blue = Integer.parseInt(matcher.group(3));
-        }
-        else                      // bad syntax or too many digits
+    else if (word.startsWith("-m") || (mswinFlag && word.startsWith("/m")))
+    {
+      /* This option may be followed by the number of seconds between
+      reports on standard error.  Without a number, only JMX is used. */
+
+      int seconds = 0;            // default value is no reports
+      if (word.length() > 2)
+      {
+        try                       // try to parse remainder as unsigned integer
         {
-          blue = green = red = -1; // mark result as invalid
+          seconds = Integer.parseInt(word.substring(2));
         }
-        if ((blue < 0) || (blue > 255) || (green < 0) || (green > 255) ||
-          (red < 0) || (red > 255))
+        catch (NumberFormatException nfe) // if not a number or bad syntax
         {
-          System.err.println("Invalid foreground color: " + args[i]);
-          showHelp();             // show help summary
-          System.exit(-1);        // exit application after printing help
+          seconds = -1;           // set result to an illegal value
         }
-        textColor = new Color(red, green, blue); // use this foreground color
       }
+      if ((seconds < 0) || (seconds > 86400))
+      {
+        throw new IllegalArgumentException("Invalid seconds for metrics: "
+          + arg);
+      }
+      options.metricSeconds = seconds; // collect statistics
+    }
+
+    else if (word.startsWith("-o") || (mswinFlag && word.startsWith("/o")))
+      options.outputFile = arg.substring(2); // accept any file name
+
+    else if (word.startsWith("-p") || (mswinFlag && word.startsWith("/p")))
+    {
+      /* This option is followed by a panel color or background in RGB. */
 
-      else if (word.startsWith("-w") || (mswinFlag && word.startsWith("/w")))
+      int blue, green, red;       // local variables for color values
+      int[] values = parseNumbers(word.substring(2), 3, 4); // parse option
+      if (values != null)         // if option has proper syntax
+      {
+        red = values[0];
+        green = values[1];
+        blue = values[2];
+      }
+      else                        // bad syntax or too many digits
+      {
+        blue = green = red = -1;  // mark result as invalid
+      }
+      if ((blue < 0) || (blue > 255) || (green < 0) || (green > 255) ||
+        (red < 0) || (red > 255))
       {
-        /* This option is followed by a list of four numbers for the initial
-        window position and size. */
+        throw new IllegalArgumentException("Invalid background color: " + arg);
+      }
+      options.panelColor = (red << 16) | (green << 8) | blue;
+                                  // use this background color
+    }
 
-        Pattern pattern = Pattern.compile(
-          "\\s*\\(\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*,\\s*(\\d{1,5})\\s*\\)\\s*");
-        Matcher matcher = pattern.matcher(word.substring(2)); // parse option
-        if (matcher.matches())    // if option has proper syntax
-        {
-          windowLeft = Integer.parseInt(matcher.group(1));
-          windowTop = Integer.parseInt(matcher.group(2));
-          windowWidth = Integer.parseInt(matcher.group(3));
-          windowHeight = Integer.parseInt(matcher.group(4));
-        }
-        else                      // bad syntax or too many digits
+    else if (word.startsWith("-q") || (mswinFlag && word.startsWith("/q")))
+    {
+      /* This option is followed by a file name for a schedule of events. */
+
+      if (word.length() <= 2)     // must have a file name
+      {
+        throw new IllegalArgumentException("Missing file name for schedule: "
+          + arg);
+      }
+      options.scheduleFile = arg.substring(2); // accept any file name
+    }
+
+    else if (word.startsWith("-r") || (mswinFlag && word.startsWith("/r")))
+    {
+      /* This option may be followed by the number of frames per second.
+      Without a number, the screen's refresh rate is used. */
+
+      int rate = 0;               // default value is screen's refresh rate
+      if (word.length() > 2)
+      {
+        try                       // try to parse remainder as unsigned integer
         {
-          windowHeight = windowLeft = windowTop = windowWidth = -1;
-                                  // mark result as invalid
+          rate = Integer.parseInt(word.substring(2));
         }
-        if ((windowHeight < MIN_FRAME) || (windowWidth < MIN_FRAME))
+        catch (NumberFormatException nfe) // if not a number or bad syntax
         {
-          System.err.println("Invalid window position or size: " + args[i]);
-          showHelp();             // show help summary
-          System.exit(-1);        // exit application after printing help
+          rate = -1;              // set result to an illegal value
         }
       }
-
-      else if (word.equals("-x") || (mswinFlag && word.equals("/x"))
-        || word.equals("-x1") || (mswinFlag && word.equals("/x1")))
+      if ((rate < 0) || (rate > 1000))
       {
-        maximizeFlag = true;      // maximize our main window
+        throw new IllegalArgumentException(
+          "Frames per second must be from 1 to 1000: " + arg);
       }
-      else if (word.equals("-x0") || (mswinFlag && word.equals("/x0")))
-        maximizeFlag = false;     // regular window, don't maximize
+      options.refreshRate = rate; // draw clocks once per frame
+    }
 
-      else
+    else if (word.startsWith("-s") || (mswinFlag && word.startsWith("/s")))
+    {
+      /* This option is followed by a font size for the output text area. */
+
+      int size = -1;              // default value for font point size
+      try                         // try to parse remainder as unsigned integer
       {
-        System.err.println("Option not recognized: " + args[i]);
-        showHelp();               // show help summary
-        System.exit(-1);          // exit application after printing help
+        size = Integer.parseInt(word.substring(2));
+      }
+      catch (NumberFormatException nfe) // if not a number or bad syntax
+      {
+        size = -1;                // set result to an illegal value
+      }
+      if ((size < 10) || (size > 999))
+      {
+        throw new IllegalArgumentException("Invalid font point size " + arg);
       }
+      options.fontSize = size;    // use this point size for output text area
     }
 
-    /* Initialize shared graphical objects. */
+    else if (word.startsWith("-t") || (mswinFlag && word.startsWith("/t")))
+    {
+      /* This option is followed by a text color or foreground in RGB. */
 
-    action = new ShowDateTime1User(); // create our shared action listener
+      int blue, green, red;       // local variables for color values
+      int[] values = parseNumbers(word.substring(2), 3, 4); // parse option
+      if (values != null)         // if option has proper syntax
+      {
+        red = values[0];
+        green = values[1];
+        blue = values[2];
+      }
+      else                        // bad syntax or too many digits
+      {
+        blue = green = red = -1;  // mark result as invalid
+      }
+      if ((blue < 0) || (blue > 255) || (green < 0) || (green > 255) ||
+        (red < 0) || (red > 255))
+      {
+        throw new IllegalArgumentException("Invalid foreground color: " + arg);
+      }
+      options.textColor = (red << 16) | (green << 8) | blue;
+                                  // use this foreground color
+    }
 
-    /* This is a pop-up menu invoked by any mouse click on the text area. */
+    else if (word.startsWith("-u") || (mswinFlag && word.startsWith("/u")))
+    {
+      /* This option is followed by the host name (or address) and port
+      number of a time server, separated by a colon (:). */
 
-    menuPopup = new JPopupMenu();
+      String address = arg.substring(2); // keep host name's case
+      int port = -1;              // default value is invalid
+      if (address.lastIndexOf(':') > 0) // need a host name and a port
+      {
+        try                       // try to parse port as unsigned integer
+        {
+          port = Integer.parseInt(address.substring(address.lastIndexOf(
+            ':') + 1));
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          port = -1;              // set result to an illegal value
+        }
+      }
+      if ((port < 1) || (port > 65535))
+      {
+        throw new IllegalArgumentException("Time server must be host:port: "
+          + arg);
+      }
+      options.serverAddress = address; // show text from time server
+    }
 
-    menuCancel = new JMenuItem("Cancel"); // ignore the mouse click
-    menuCancel.addActionListener(action);
-    menuPopup.add(menuCancel);
+    else if (word.startsWith("-v") || (mswinFlag && word.startsWith("/v")))
+    {
+      /* This option is followed by a file name for frames as pixels. */
 
-    menuExit = new JMenuItem("Exit"); // exit from this application
-    menuExit.addActionListener(action);
-    menuPopup.add(menuExit);
+      if (word.length() <= 2)     // must have a file name
+      {
+        throw new IllegalArgumentException("Missing file name for frames: "
+          + arg);
+      }
+      options.exportFile = arg.substring(2); // accept any file name
+    }
 
-    /* Output text area for the date and/or time display.  We use a simple
-    JLabel to center the text both horizontally and vertically. */
-
-    oldText = formatDate.format(new Date()); // format and save text
-    outputText = new JLabel(oldText, JLabel.CENTER);
-    outputText.addKeyListener((KeyListener) action);
-    outputText.addMouseListener((MouseListener) action);
-    outputText.setBackground(panelColor);
-    outputText.setFocusable(true); // accept keyboard characters
-    outputText.setFont(new Font(fontName, Font.PLAIN, fontSize));
-    outputText.setForeground(textColor);
-    outputText.setOpaque(true);   // use our choice for background color
+    else if (word.startsWith("-w") || (mswinFlag && word.startsWith("/w")))
+    {
+      /* This option is followed by a list of four numbers for the initial
+      window position and size. */
 
-    /* The main application window.  Use setUndecorated(true) to remove borders
-    and window controls, and to use the full screen for a maximized window. */
-
-    mainFrame = new JFrame("Date Time Zone");
-    mainFrame.getContentPane().add(outputText, BorderLayout.CENTER);
-    mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    mainFrame.setLocation(windowLeft, windowTop); // normal top-left corner
-    mainFrame.setSize(windowWidth, windowHeight); // size of normal window
-    mainFrame.setUndecorated(! borderFlag); // window borders and controls
-    if (maximizeFlag) mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-    mainFrame.validate();         // recheck application window layout
-    mainFrame.setVisible(true);   // and then show application window
+      int[] values = parseNumbers(word.substring(2), 4, 5); // parse option
+      if (values != null)         // if option has proper syntax
+      {
+        options.windowLeft = values[0];
+        options.windowTop = values[1];
+        options.windowWidth = values[2];
+        options.windowHeight = values[3];
+      }
+      else                        // bad syntax or too many digits
+      {
+        options.windowHeight = options.windowLeft = options.windowTop
+          = options.windowWidth = -1; // mark result as invalid
+      }
+      if ((options.windowHeight < MIN_FRAME) || (options.windowWidth
+        < MIN_FRAME))
+      {
+        throw new IllegalArgumentException("Invalid window position or size: "
+          + arg);
+      }
+    }
 
-    /* Let the graphical interface run the application now. */
+    else if (word.equals("-x") || (mswinFlag && word.equals("/x"))
+      || word.equals("-x1") || (mswinFlag && word.equals("/x1")))
+    {
+      options.maximizeFlag = true; // maximize our main window
+    }
+    else if (word.equals("-x0") || (mswinFlag && word.equals("/x0")))
+      options.maximizeFlag = false; // regular window, don't maximize
 
-    outputText.requestFocusInWindow(); // give keyboard focus to output text
-    updateTimer = new javax.swing.Timer(TIMER_DELAY, action);
-    updateTimer.start();          // update output text on clock ticks only
+    else if (word.equals("-y") || (mswinFlag && word.equals("/y")))
+      options.startupReport = 1;  // report time to first paint
+    else if (word.equals("-yx") || (mswinFlag && word.equals("/yx")))
+      options.startupReport = 2;  // report and exit, for a training run
 
-  } // end of main() method
+    else if (word.startsWith("-z") || (mswinFlag && word.startsWith("/z")))
+    {
+      /* This option is followed by a speed for a virtual clock, or "s" to
+      step from one change to the next, and optionally a comma and a start
+      time: "yyyy-MM-dd HH:mm[:ss]" or milliseconds. */
 
-// ------------------------------------------------------------------------- //
+      String rest = word.substring(2); // speed and start time
+      int comma = rest.indexOf(',');
+      String speedText = (comma < 0) ? rest : rest.substring(0, comma);
+      int speed = -1;             // default value is invalid
+      long start = 0;             // default is to start now
+      if (speedText.equals("s"))  // step between changes
+        speed = 0;
+      else
+      {
+        try                       // try to parse speed as unsigned integer
+        {
+          speed = Integer.parseInt(speedText);
+        }
+        catch (NumberFormatException nfe) // if not a number or bad syntax
+        {
+          speed = -1;             // set result to an illegal value
+        }
+        if ((speed < 1) || (speed > 1000000))
+          speed = -1;
+      }
+      if (comma >= 0)             // start time was given
+      {
+        start = ShowDateTime1Schedule.parseTime(rest.substring(comma + 1)
+          .trim().toUpperCase(), Calendar.getInstance());
+        if (start == Long.MIN_VALUE)
+          speed = -1;
+      }
+      if (speed < 0)
+      {
+        throw new IllegalArgumentException(
+          "Virtual clock must be speed (1 to 1000000) or s, and start: "
+          + arg);
+      }
+      options.clockSpeed = speed; // use a virtual clock
+      options.clockStart = start;
+    }
+    else
+      return(false);              // not one of our options
+    return(true);
+
+  } // end of parseOption() method
 
 /*
-  showHelp() method
+  readClockList() method
 
-  Show the help summary.  This is a UNIX standard and is expected for all
-  console applications, even very simple ones.
+  Read a list of clocks from a text file, one per line: time zone, date format,
+  and label, separated by vertical bars.  Return a list of string arrays, with
+  null for anything not given (default time zone, -d format).  Errors are
+  fatal, since there is no other way to report them.
 */
-  static void showHelp()
+  static Vector<String[]> readClockList(String fileName)
   {
+    String[] entry;               // time zone, format, label for one clock
+    BufferedReader input;         // for reading lines from file
+    int lineNumber;               // line number in file, for errors
+    String line;                  // one line from file
+    Vector<String[]> result;      // our list of clocks
+
+    result = new Vector<String[]>();
+    try
+    {
+      input = new BufferedReader(new FileReader(fileName));
+      lineNumber = 0;
+      while ((line = input.readLine()) != null)
+      {
+        lineNumber ++;
+        line = line.trim();
+        if ((line.length() == 0) || line.startsWith("#"))
+          continue;               // ignore blank lines and comments
+        entry = new String[3];
+        int first = line.indexOf('|');
+        int second = (first < 0) ? -1 : line.indexOf('|', (first + 1));
+        entry[0] = ((first < 0) ? line : line.substring(0, first)).trim();
+        entry[1] = (first < 0) ? "" : ((second < 0) ? line.substring(first
+          + 1) : line.substring((first + 1), second)).trim();
+        entry[2] = (second < 0) ? "" : line.substring(second + 1).trim();
+        if ((entry[0].length() > 0) && TimeZone.getTimeZone(entry[0]).getID()
+          .equals("GMT") && (entry[0].equals("GMT") == false))
+                                  // unknown time zones become "GMT"
+        {
+          System.err.println("Invalid time zone on line " + lineNumber
+            + " of " + fileName + ": " + entry[0]);
+          System.exit(-1);
+        }
+        if (entry[1].length() > 0)
+        {
+          try { new SimpleDateFormat(entry[1]); } // check pattern syntax
+          catch (IllegalArgumentException iae)
+          {
+            System.err.println("Invalid date format on line " + lineNumber
+              + " of " + fileName + ": " + entry[1]);
+            System.exit(-1);
+          }
+        }
+        if (entry[2].length() == 0) // default label is time zone name
+          entry[2] = entry[0];
+        for (int i = 0; i < entry.length; i ++)
+          if (entry[i].length() == 0) entry[i] = null;
+        result.add(entry);
+      }
+      input.close();
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't read list of clocks from " + fileName + ": "
+        + ioe.getMessage());
+      System.exit(-1);
+    }
+    if (result.size() == 0)
+    {
+      System.err.println("No clocks found in " + fileName);
+      System.exit(-1);
+    }
+    return(result);
+
+  } // end of readClockList() method
+
+/*
+  showHelp() method
+
+  Show the help summary.  This is a UNIX standard and is expected for all
+  console applications, even very simple ones.
+*/
+  static void showHelp()
+  {
+    System.err.println();
+    System.err.println(PROGRAM_TITLE);
     System.err.println();
-    System.err.println(PROGRAM_TITLE);
-    System.err.println();
-    System.err.println("This is a graphical application.  You may give options on the command line:");
+    System.err.println("This is a graphical application, with some modes that have no window.  You may");
+    System.err.println("give options on the command line:");
     System.err.println();
     System.err.println("  -? = -help = show summary of command-line syntax");
+    System.err.println("  -a# = more options from file #, one per line; applied when file changes");
     System.err.println("  -b0 = hide window borders and controls; use full screen if -x1 given");
     System.err.println("  -b1 = -b = show borders and controls on application window (default)");
+    System.err.println("  -c# = file with list of clocks, one per line: zone | format | label");
     System.err.println("  -d# = date and/or time format; see Java SimpleDateFormat description");
+    System.err.println("  -e# = time server: HTTP server-sent events on port #; no window");
     System.err.println("  -f# = text font name; example: -fVerdana");
+    System.err.println("  -g# = screen number from 1 for this window; -ga = one window per screen");
+    System.err.println("  -i# = format epoch times at start of lines in file #; -i = stdin");
+    System.err.println("  -j# = number of events to show from -q schedule (default 5)");
+    System.err.println("  -k# = cache # MB of rendered text images (default 32); for big fonts");
+    System.err.println("  -l# = time server: lines of text on TCP port #; no window");
+    System.err.println("  -m# = collect tick statistics (JMX), report on stderr every # seconds");
+    System.err.println("  -n = start options for another window (copied from previous window)");
+    System.err.println("  -o# = no window; write text to file # when it changes; -o = stdout");
     System.err.println("  -p(#,#,#) = panel color or background in RGB; white is -p(255,255,255)");
+    System.err.println("  -q# = show countdowns to next events in schedule file #, not the time");
+    System.err.println("  -r# = draw every frame, # per second (default screen refresh); for SSS");
     System.err.println("  -s# = text font size from 10 to 999 points; example: -s24");
     System.err.println("  -t(#,#,#) = text color or foreground in RGB; black is -t(0,0,0)");
+    System.err.println("  -u# = show text from time server # (host:port) instead of our own clock");
+    System.err.println("  -v# = no window; write frames to # (.png numbered, .rgb, else raw ARGB)");
     System.err.println("  -w(#,#,#,#) = normal window position: left, top, width, height;");
     System.err.println("      example: -w(50,50,700,500)");
     System.err.println("  -x0 = normal or regular window, don't maximize (default)");
     System.err.println("  -x1 = -x = maximize application window; full screen if -b0 given");
+    System.err.println("  -y = report startup time to first paint on stderr; -yx = report and exit");
+    System.err.println("  -z#[,#] = virtual clock for testing: # times real speed, or -zs to step");
+    System.err.println("      between changes; optional start time: -z60,2026-03-08 01:55");
     System.err.println();
     System.err.println("Options containing spaces or punctuation may need to be quoted according to");
     System.err.println("your system's command syntax.");
@@ -372,85 +1025,5371 @@ public class ShowDateTime1
 
   } // end of showHelp() method
 
+} // end of ShowDateTime1 class
+
+// ------------------------------------------------------------------------- //
+
 /*
-  userButton() method
+  ShowDateTime1Batch class
 
-  This method is called by our action listener actionPerformed() to process
-  buttons, in the context of the main ShowDateTime1 class.
+  This class reformats epoch times in large files, for the -i option.  Each
+  line that starts with an epoch time (13 digits of milliseconds since 1970,
+  as written by System.currentTimeMillis() and many logs, or 10 digits of
+  seconds), followed by white space or a comma, has that number replaced by
+  the -d date format.  Anything else, such as "2024-01-15" or "200 OK", isn't
+  an epoch time.  The rest of the line, and lines without an epoch time, are
+  copied as is.  Simple HTML in the date format is removed, as for -o.
+
+  Files are memory mapped, and standard input is read in large blocks.  The
+  input is cut into chunks at line boundaries, and the chunks are formatted
+  in parallel, one thread per processor.  A line longer than a chunk is cut
+  anyway; the chunks after the cut know that they start in the middle of a
+  line, and copy that part as is.  Each thread has its own formatter,
+  since SimpleDateFormat isn't thread-safe, and each chunk has a small cache
+  of formatted seconds, since log times repeat.  Chunks are written in input
+  order.  One object of this class is one chunk.  The first object for each
+  call to formatFile() has no input, and holds what all of its chunks share,
+  so that more than one file can be formatted at the same time.  Blocks read
+  from standard input are used again once their chunks have been written.
 */
-  static void userButton(ActionEvent event)
+
+class ShowDateTime1Batch
+  implements java.util.concurrent.Callable<ShowDateTime1Batch>
+{
+  /* constants */
+
+  static final int CACHE_SIZE = 256; // formatted seconds in cache, power of 2
+  static final int CHUNK_SIZE = 4 << 20; // about 4 MB of input for each task
+  static final int MAP_SIZE = 256 << 20; // map files 256 MB at a time
+  static final int MILLIS_DIGITS = 13; // epoch milliseconds, 2001 to 2286
+  static final int SECONDS_DIGITS = 10; // epoch seconds, 2001 to 2286
+
+  /* instance variables */
+
+  byte[] block;                   // array behind <input>, or null if mapped
+  byte[][] cacheBytes;            // formatted text for recent seconds
+  long[] cacheKeys;               // seconds in <cacheBytes>
+  SimpleDateFormat format;        // date format from caller, shared
+  ByteBuffer input;               // lines of input for this chunk
+  boolean midLine;                // true if <input> starts in a cut line
+  byte[] output;                  // formatted output for this chunk
+  int outputLength;               // number of bytes in <output>
+  ShowDateTime1Format plan;       // compiled date format or null, shared
+  byte[] scratch;                 // reused for text that isn't cached
+  LinkedList<byte[]> spares;      // blocks of written chunks, shared
+  ShowDateTime1Text text;         // formatter for the current thread
+  ThreadLocal<ShowDateTime1Text> texts; // formatter for each thread, shared
+
+/*
+  constructor
+
+  Start a new call to formatFile() with no input, or a new chunk with the
+  same date format as an earlier object.
+*/
+  public ShowDateTime1Batch(SimpleDateFormat format)
   {
-    Object source = event.getSource(); // where the event came from
-    if (source == menuCancel)     // "Cancel" item on mouse pop-up menu
+    this.format = format;
+    this.plan = ShowDateTime1Format.compile(format); // once for all threads
+    this.spares = new LinkedList<byte[]>();
+    this.texts = new ThreadLocal<ShowDateTime1Text>();
+  }
+
+  public ShowDateTime1Batch(ShowDateTime1Batch shared, ByteBuffer input,
+    boolean midLine)
+  {
+    this.block = input.hasArray() ? input.array() : null;
+    this.format = shared.format;
+    this.input = input;
+    this.midLine = midLine;
+    this.plan = shared.plan;
+    this.spares = shared.spares;
+    this.texts = shared.texts;
+  }
+
+/*
+  append() method
+
+  Add bytes to our output.
+*/
+  void append(byte[] bytes, int count)
+  {
+    ensure(count);
+    System.arraycopy(bytes, 0, output, outputLength, count);
+    outputLength += count;
+  }
+
+/*
+  call() method
+
+  Format one chunk of lines on a worker thread.  Return this object, with
+  <output> and <outputLength> set.
+*/
+  public ShowDateTime1Batch call()
+  {
+    int digits;                   // number of digits in epoch time
+    int end;                      // end of input chunk
+    int i;                        // index variable
+    int line;                     // start of current line
+    long millis;                  // epoch time from current line
+
+    text = texts.get();           // one formatter per thread
+    if (text == null)
     {
-      /* The pop-up menu will disappear by itself if we ignore this event. */
+      SimpleDateFormat clone = (SimpleDateFormat) format.clone();
+      text = new ShowDateTime1Text(plan, clone);
+      texts.set(text);
     }
-    else if (source == menuExit)  // "Exit" item on mouse pop-up menu
+    if (text.ticker.unit != Calendar.MILLISECOND) // cache only whole seconds
     {
-      System.exit(0);             // always exit with zero status from GUI
+      cacheBytes = new byte[CACHE_SIZE][];
+      cacheKeys = new long[CACHE_SIZE];
     }
-    else if (source == updateTimer) // update timer for output text area
+    end = input.limit();
+    output = new byte[(end - input.position()) * 2 + 64]; // usually enough
+    outputLength = 0;
+    scratch = new byte[64];
+
+    line = input.position();
+    while (line < end)
     {
-      String newText = formatDate.format(new Date()); // format date and time
-      if (newText.equals(oldText) == false) // has date or time changed?
+      i = line;                   // parse epoch time at start of line
+      millis = digits = 0;        // ... unless line started in earlier chunk
+      while ((midLine == false) && (i < end) && (digits <= MILLIS_DIGITS)
+        && (input.get(i) >= '0') && (input.get(i) <= '9'))
+      {
+        millis = (millis * 10) + (input.get(i ++) - '0');
+        digits ++;
+      }
+      if (((digits == MILLIS_DIGITS) || (digits == SECONDS_DIGITS))
+        && ((i == end) || isSeparator(input.get(i))))
       {
-        outputText.setText(newText); // yes, show new date or time
-        oldText = newText;        // next time, compare against this text
+        formatTime((digits == SECONDS_DIGITS) ? (millis * 1000) : millis);
+        line = i;                 // copy rest of line after number
       }
+      for (i = line; (i < end) && (input.get(i) != '\n'); i ++) ;
+      if (i < end) i ++;          // include newline
+      ensure(i - line);
+      input.position(line);
+      input.get(output, outputLength, (i - line));
+      outputLength += i - line;
+      line = i;
+      midLine = false;
     }
-    else                          // fault in program logic, not by user
+    input = null;                 // let mapped memory go
+    return(this);
+  }
+
+/*
+  ensure() method
+
+  Make sure that our output array has room for more bytes.
+*/
+  void ensure(int count)
+  {
+    if ((outputLength + count) > output.length)
+      output = Arrays.copyOf(output, Math.max((outputLength + count), (output
+        .length * 2)));
+  }
+
+/*
+  formatAll() method
+
+  Run the -i option: format a file, or standard input if the file name is
+  empty, to the -o file or standard output.  Never returns.
+*/
+  static void formatAll(ShowDateTime1Options options)
+  {
+    OutputStream output;          // where formatted lines go
+
+    try
     {
-      System.err.println("Error in userButton(): unknown ActionEvent: "
-        + event);                 // should never happen, so write on console
+      output = ((options.outputFile == null) || (options.outputFile.length()
+        == 0)) ? (OutputStream) new FileOutputStream(FileDescriptor.out)
+        : new FileOutputStream(options.outputFile);
+      formatFile(options.inputFile, output, options.formatDate, Runtime
+        .getRuntime().availableProcessors());
+      output.close();
     }
-  } // end of userButton() method
+    catch (IOException ioe)
+    {
+      System.err.println("Can't format times: " + ioe.getMessage());
+      System.exit(-1);
+    }
+    System.exit(0);
+  }
 
-} // end of ShowDateTime1 class
+/*
+  formatFile() method
+
+  Format a file, or standard input if the file name is empty, to an output
+  stream, with the given number of threads.  This may be called from other
+  programs.
+*/
+  static void formatFile(String fileName, OutputStream output,
+    SimpleDateFormat dateFormat, int threads) throws IOException
+  {
+    java.util.concurrent.ExecutorService pool; // worker threads
+    LinkedList<java.util.concurrent.Future<ShowDateTime1Batch>> pending;
+                                  // chunks not yet written, in order
+    ShowDateTime1Batch shared;    // what all chunks share
+
+    shared = new ShowDateTime1Batch(dateFormat);
+    pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+    pending = new LinkedList<java.util.concurrent.Future<ShowDateTime1Batch>>();
+    try
+    {
+      if (fileName.length() == 0)
+        readStream(shared, System.in, output, pool, pending, threads);
+      else
+        mapFile(shared, fileName, output, pool, pending, threads);
+      while (pending.isEmpty() == false) // write the last chunks
+        writeChunk(output, pending);
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+  }
+
+/*
+  formatTime() method
+
+  Add the formatted text for one epoch time to our output.  Whole seconds are
+  looked up in a cache first.  Otherwise, our formatter only rewrites the
+  fields that changed since the previous line, which is usually very close.
+*/
+  void formatTime(long millis)
+  {
+    int index;                    // index into cache
+    long second;                  // whole seconds for cache
+
+    if (cacheKeys != null)        // date format has whole seconds or larger
+    {
+      second = (millis >= 0) ? (millis / 1000) : (((millis + 1) / 1000) - 1);
+      index = (int) second & (CACHE_SIZE - 1);
+      if ((cacheBytes[index] == null) || (cacheKeys[index] != second))
+      {
+        text.update(millis);
+        cacheBytes[index] = Arrays.copyOf(scratch, toBytes());
+        cacheKeys[index] = second;
+      }
+      append(cacheBytes[index], cacheBytes[index].length);
+    }
+    else                          // milliseconds change on every line
+    {
+      text.update(millis);
+      append(scratch, toBytes());
+    }
+  }
+
+/*
+  isSeparator() method
+
+  Return true if a byte after a number ends the number as an epoch time: white
+  space (including the end of the line) or a comma.  Other punctuation, such
+  as "-" or ":", means that the number is part of something else.
+*/
+  static boolean isSeparator(byte value)
+  {
+    return((value == ' ') || (value == '\t') || (value == ',')
+      || (value == '\r') || (value == '\n'));
+  }
+
+/*
+  mapFile() method
+
+  Cut a memory-mapped file into chunks at line boundaries.  Files are mapped
+  in large pieces; a line that crosses the end of a piece starts the next
+  piece, unless the line is longer than a whole piece, and is cut.
+*/
+  static void mapFile(ShowDateTime1Batch shared, String fileName,
+    OutputStream output, java.util.concurrent.ExecutorService pool,
+    LinkedList<java.util.concurrent.Future<ShowDateTime1Batch>> pending,
+    int threads) throws IOException
+  {
+    FileChannel channel;          // input file
+    int length;                   // size of current piece
+    MappedByteBuffer map;         // current piece of file
+    boolean midLine;              // true if last chunk ended in a cut line
+    long position;                // start of current piece in file
+    long size;                    // size of file
+    int start, stop;              // current chunk in piece
+
+    channel = new FileInputStream(fileName).getChannel();
+    try
+    {
+      size = channel.size();
+      midLine = false;
+      position = 0;
+      while (position < size)
+      {
+        length = (int) Math.min(MAP_SIZE, (size - position));
+        map = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        start = 0;
+        while (start < length)
+        {
+          stop = Math.min(length, (start + CHUNK_SIZE)) - 1;
+          while ((stop < length) && (map.get(stop) != '\n')) stop ++;
+          if ((stop >= length) && ((position + length) < size) && (start > 0))
+            break;                // line continues in next piece
+          stop = Math.min(length, (stop + 1)); // include newline
+          ByteBuffer chunk = map.duplicate();
+          chunk.limit(stop);
+          chunk.position(start);
+          submit(new ShowDateTime1Batch(shared, chunk, midLine), output, pool,
+            pending, threads);
+          midLine = map.get(stop - 1) != '\n';
+          start = stop;
+        }
+        position += start;
+      }
+    }
+    finally
+    {
+      channel.close();            // even if formatting failed
+    }
+  }
+
+/*
+  readStream() method
+
+  Cut a stream into chunks at line boundaries.  A line longer than a block
+  is cut at the end of the block.  Blocks come back from writeChunk() through
+  <spares> when their chunks have been written.
+*/
+  static void readStream(ShowDateTime1Batch shared, InputStream input,
+    OutputStream output, java.util.concurrent.ExecutorService pool,
+    LinkedList<java.util.concurrent.Future<ShowDateTime1Batch>> pending,
+    int threads) throws IOException
+  {
+    byte[] block;                 // bytes for one chunk
+    int count;                    // number of bytes read
+    boolean finished;             // true at end of input
+    int length;                   // number of bytes in <block>
+    boolean midLine;              // true if last chunk ended in a cut line
+    byte[] next;                  // block for the rest of the input
+    int stop;                     // end of last complete line in <block>
+
+    block = new byte[CHUNK_SIZE];
+    finished = false;
+    length = 0;
+    midLine = false;
+    while (finished == false)
+    {
+      while ((length < block.length) && ((count = input.read(block, length,
+        (block.length - length))) >= 0))
+      {
+        length += count;
+      }
+      finished = length < block.length;
+      for (stop = length; (stop > 0) && (block[stop - 1] != '\n'); stop --) ;
+      if (finished || (stop == 0)) // whole block: end of input, or long line
+        stop = length;
+      next = shared.spares.isEmpty() ? new byte[CHUNK_SIZE]
+        : shared.spares.removeFirst(); // not a block still being formatted
+      System.arraycopy(block, stop, next, 0, (length - stop));
+      if (stop > 0)
+      {
+        submit(new ShowDateTime1Batch(shared, ByteBuffer.wrap(block, 0, stop),
+          midLine), output, pool, pending, threads);
+        midLine = block[stop - 1] != '\n';
+      }
+      block = next;
+      length -= stop;
+    }
+  }
+
+/*
+  submit() method
+
+  Start formatting a chunk.  If too many chunks are waiting, write the oldest
+  one first, so that memory stays bounded.
+*/
+  static void submit(ShowDateTime1Batch chunk, OutputStream output,
+    java.util.concurrent.ExecutorService pool,
+    LinkedList<java.util.concurrent.Future<ShowDateTime1Batch>> pending,
+    int threads) throws IOException
+  {
+    pending.add(pool.submit(chunk));
+    while (pending.size() > (threads * 3))
+      writeChunk(output, pending);
+  }
+
+/*
+  toBytes() method
+
+  Put the current text from our formatter into <scratch> as UTF-8, and return
+  the number of bytes.  Plain ASCII, the usual case, is copied directly.
+*/
+  int toBytes()
+  {
+    byte[] bytes;                 // encoded text, if not ASCII
+    char ch;                      // one character
+    int i;                        // index variable
+
+    if (text.isCompiled() && (ShowDateTime1Text.isHtml(text.buffer,
+      text.length) == false))
+    {
+      if (scratch.length < text.length)
+        scratch = new byte[text.length * 2];
+      for (i = 0; i < text.length; i ++)
+      {
+        ch = text.buffer[i];
+        if (ch >= 0x80)           // not ASCII
+          break;
+        scratch[i] = (byte) ch;
+      }
+      if (i == text.length)
+        return(i);
+    }
+    try
+    {
+      bytes = ShowDateTime1Stream.plainText(text.getText()).getBytes(
+        "UTF-8");
+    }
+    catch (UnsupportedEncodingException uee) { return(0); } // can't happen
+    if (scratch.length < bytes.length)
+      scratch = new byte[bytes.length * 2];
+    System.arraycopy(bytes, 0, scratch, 0, bytes.length);
+    return(bytes.length);
+  }
+
+/*
+  writeChunk() method
+
+  Wait for the oldest chunk to be formatted, and write it.  Its input block,
+  if any, can then be read into again.
+*/
+  static void writeChunk(OutputStream output,
+    LinkedList<java.util.concurrent.Future<ShowDateTime1Batch>> pending)
+    throws IOException
+  {
+    ShowDateTime1Batch chunk;     // formatted chunk
+
+    try
+    {
+      chunk = pending.removeFirst().get();
+    }
+    catch (Exception e)           // interrupted, or failed on worker thread
+    {
+      throw new IOException("formatting failed: " + e);
+    }
+    output.write(chunk.output, 0, chunk.outputLength);
+    if (chunk.block != null)
+      chunk.spares.add(chunk.block);
+  }
+
+} // end of ShowDateTime1Batch class
 
 // ------------------------------------------------------------------------- //
 
 /*
-  ShowDateTime1User class
+  ShowDateTime1Cache class
 
-  This class listens to input from the user and passes back event parameters to
-  a static method in the main class.
+  This class keeps rendered images of clock labels, for the -k option, so
+  that text which has been shown before is painted by copying one image
+  instead of drawing large glyphs again.  This helps full-screen displays
+  with big fonts and formats that repeat, such as HH:mm or a date.  Images
+  are keyed by the text, font, colors, and image size, and the least recently
+  used images are thrown away when the total size goes over a limit in bytes.
+  Sizes are counted from each image's data buffer, since screens may have 2
+  or 3 bytes per pixel instead of 4.  An image of simple text is only the
+  block of lines, which doesn't change when a label is resized, so resizing
+  a window costs nothing; images of whole labels at an old size are simply
+  the least recently used.  All images are thrown away when the screen scale
+  changes, since they can never be used again.  Only the event dispatch
+  thread uses this class.
 */
 
-class ShowDateTime1User implements ActionListener, KeyListener, MouseListener
+class ShowDateTime1Cache
 {
-  /* empty constructor */
+  /* class variables */
 
-  public ShowDateTime1User() { }
+  static ShowDateTime1Cache active; // cache for all labels, or null if none
 
-  /* button listener, dialog boxes, menu items, etc */
+  /* instance variables */
 
-  public void actionPerformed(ActionEvent event)
+  long bytes;                     // total size of all images in bytes
+  long evictions;                 // images thrown away to stay under limit
+  long hits, misses;              // lookups that found or didn't find images
+  LinkedHashMap<String, BufferedImage> images;
+                                  // images by key, least recently used first
+  long invalidations;             // times that all images were thrown away
+  long maxBytes;                  // most bytes allowed for all images
+  double scaleX, scaleY;          // screen scale for current images
+
+/*
+  constructor
+*/
+  public ShowDateTime1Cache(long maxBytes)
   {
-    ShowDateTime1.userButton(event);
+    this.bytes = 0;
+    this.evictions = this.hits = this.invalidations = this.misses = 0;
+    this.images = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true);
+                                  // access order
+    this.maxBytes = maxBytes;
+    this.scaleX = this.scaleY = 1.0;
   }
 
-  /* keyboard listener: special key to exit application */
+/*
+  clear() method
 
-  public void keyPressed(KeyEvent event) { /* not used */ }
-  public void keyReleased(KeyEvent event)
+  Throw away all images, after the screen scale has changed.
+*/
+  void clear()
   {
-    if (event.getKeyCode() == KeyEvent.VK_ESCAPE) // only the Escape key
-      System.exit(0);             // always exit with zero status from GUI
+    if (images.isEmpty() == false)
+    {
+      images.clear();
+      bytes = 0;
+      invalidations ++;
+    }
   }
-  public void keyTyped(KeyEvent event) { /* not used */ }
 
-  /* mouse listener: always the cancel/exit pop-up menu */
+/*
+  imageBytes() method
 
-  public void mouseClicked(MouseEvent event)
+  Return the size in bytes of an image's pixels, from its data buffer.
+*/
+  static long imageBytes(BufferedImage image)
   {
-    ShowDateTime1.menuPopup.show(event.getComponent(), event.getX(),
-      event.getY());
+    DataBuffer buffer;            // pixels of image, in one or more banks
+
+    buffer = image.getRaster().getDataBuffer();
+    return((long) buffer.getSize() * buffer.getNumBanks()
+      * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
   }
-  public void mouseEntered(MouseEvent event) { /* not used */ }
-  public void mouseExited(MouseEvent event) { /* not used */ }
-  public void mousePressed(MouseEvent event) { /* not used */ }
-  public void mouseReleased(MouseEvent event) { /* not used */ }
 
-} // end of ShowDateTime1User class
+/*
+  paint() method
+
+  Paint a label from a cached image, rendering and saving the image first if
+  necessary.  Return false if the label can't be cached.  For simple text, the
+  image is only the block of lines, and the rest is filled with the
+  background color; otherwise, the image is the whole label.
+*/
+  boolean paint(ShowDateTime1Label label, Graphics g)
+  {
+    Graphics2D gr;                // graphics context for rendering image
+    int height, width;            // size of image in pixels
+    BufferedImage image;          // rendered label
+    Iterator<BufferedImage> iterator; // for evicting old images
+    String key;                   // text and appearance of label
+    int left, top;                // position of image in label
+    boolean textBlock;            // true if image is only the block of lines
+    java.awt.geom.AffineTransform transform; // screen scale, etc
+
+    textBlock = (label.lines != null) && label.makeGlyphs();
+    if (textBlock)                // only the text block
+    {
+      height = label.lines.length * label.lineHeight();
+      left = label.blockLeft();
+      top = label.blockTop();
+      width = label.blockWidth();
+    }
+    else                          // whole label, drawn by JLabel
+    {
+      height = label.getHeight();
+      left = top = 0;
+      width = label.getWidth();
+    }
+    transform = ((Graphics2D) g).getTransform();
+    if ((width <= 0) || (height <= 0) || (transform.getShearX() != 0)
+      || (transform.getShearY() != 0))
+    {
+      return(false);              // nothing to paint, or not a simple scale
+    }
+    if ((transform.getScaleX() != scaleX) || (transform.getScaleY()
+      != scaleY))                 // moved to a screen with a different scale
+    {
+      clear();
+      scaleX = transform.getScaleX();
+      scaleY = transform.getScaleY();
+    }
+
+    key = label.getText() + "\u0000" + label.getFont() + "/"
+      + label.getForeground().getRGB() + "/" + label.getBackground().getRGB()
+      + "/" + (textBlock ? "block " : "label ") + width + "x" + height;
+    image = images.get(key);
+    if (image != null)
+      hits ++;
+    else                          // render label into a new image
+    {
+      misses ++;
+      if (label.getGraphicsConfiguration() != null) // same as screen
+        image = label.getGraphicsConfiguration().createCompatibleImage(
+          (int) Math.ceil(width * scaleX), (int) Math.ceil(height * scaleY));
+      else                        // not on a screen yet, or headless
+        image = new BufferedImage((int) Math.ceil(width * scaleX), (int)
+          Math.ceil(height * scaleY), BufferedImage.TYPE_INT_RGB);
+      gr = image.createGraphics();
+      gr.scale(scaleX, scaleY);
+      gr.translate((- left), (- top));
+      gr.setClip(left, top, width, height);
+      label.paintLabel(gr);
+      gr.dispose();
+      images.put(key, image);
+      bytes += imageBytes(image);
+      iterator = images.values().iterator();
+      while ((bytes > maxBytes) && (images.size() > 1)) // keep newest image
+      {
+        BufferedImage oldest = iterator.next();
+        bytes -= imageBytes(oldest);
+        iterator.remove();
+        evictions ++;
+      }
+    }
+    if ((left != 0) || (top != 0) || (width != label.getWidth()) || (height
+      != label.getHeight()))      // fill background around text block
+    {
+      Rectangle clip = g.getClipBounds();
+      g.setColor(label.getBackground());
+      if (clip == null)
+        g.fillRect(0, 0, label.getWidth(), label.getHeight());
+      else
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+    }
+    g.drawImage(image, left, top, width, height, null);
+    return(true);
+  }
+
+} // end of ShowDateTime1Cache class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Canvas class
+
+  This class draws one clock with active rendering, for the -r option, instead
+  of asking Swing to repaint a label.  One thread draws every clock in every
+  window, once per frame, paced to the screen's refresh rate (or the rate
+  given).  Drawing goes to a BufferStrategy, which has two buffers, so the
+  screen never shows a half-drawn frame.  This is for formats with parts of a
+  second (S), which the timer can only update ten times per second.
+
+  Time is read from System.nanoTime(), anchored to the system clock, so that
+  readings never go backwards and milliseconds advance smoothly.  The anchor
+  is moved by at most one millisecond per frame to follow small differences,
+  and reset for changes of more than one second (the system clock was set).
+
+  Each character is copied from cached pixels, and the HTML in the text is
+  decoded into a reused buffer, so the only objects created for each frame
+  are the few that BufferStrategy and Java2D insist on.  Text that isn't
+  simple HTML is drawn as is.  Glyphs are placed at whole pixels, and can't
+  overlap, which is fine for the digits of a clock.
+*/
+
+class ShowDateTime1Canvas extends Canvas implements Runnable
+{
+  /* constants */
+
+  static final int DEFAULT_RATE = 60; // frames per second if screen unknown
+  static final long IDLE_NANOS = 100000000L; // 0.1 seconds when nothing shown
+  static final long RESYNC_LIMIT = 1000; // milliseconds before clock is reset
+  static final long serialVersionUID = 1L; // Canvas is Serializable; we're not
+
+  /* class variables */
+
+  static long anchorMillis, anchorNanos; // system clock at a nanoTime()
+  static Vector<ShowDateTime1Canvas> canvases
+    = new Vector<ShowDateTime1Canvas>(); // all canvases still open
+  static long framePeriod;        // nanoseconds between frames
+  static long lastMillis;         // most recent clock reading
+  static Thread thread;           // one drawing thread for all canvases
+
+  /* instance variables */
+
+  BufferedImage block;            // block of text lines for one frame
+  int[] blockPixels;              // pixels in <block>
+  ShowDateTime1Text clock;        // date/time text for this clock
+  int count;                      // number of characters in <display>
+  char[] display;                 // decoded text, with '\n' between lines
+  int glyphAscent, glyphHeight;   // font ascent and line height in pixels
+  Color glyphBack, glyphFore;     // colors for cached glyphs
+  char[] glyphChars;              // characters with cached glyphs
+  int glyphCount;                 // number of cached glyphs
+  Font glyphFont;                 // font for cached glyphs
+  int[][] glyphPixels;            // cached pixels for each character
+  int[] glyphWidths;              // width of each cached glyph
+  Map<?, ?> hints;                // desktop hints for drawing text
+  BufferStrategy strategy;        // double buffering, or null if not yet
+  ShowDateTime1Window window;     // our window, to know when it's hidden
+
+/*
+  constructor
+*/
+  public ShowDateTime1Canvas(ShowDateTime1Window window,
+    ShowDateTime1Text clock)
+  {
+    super();
+    this.clock = clock;
+    this.count = -1;              // nothing decoded yet
+    this.display = new char[64];
+    this.glyphChars = new char[32];
+    this.glyphCount = 0;
+    this.glyphPixels = new int[32][];
+    this.glyphWidths = new int[32];
+    this.hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty(
+      "awt.font.desktophints");   // same anti-aliasing as JLabel
+    this.window = window;
+    setIgnoreRepaint(true);       // we draw, not the AWT
+  }
+
+/*
+  currentMillis() method
+
+  Return the current time in milliseconds from our anchored nanosecond clock.
+  Called only by the drawing thread.
+*/
+  static long currentMillis()
+  {
+    long difference;              // system clock minus our clock
+    long nanos;                   // nanosecond clock now
+    long result;                  // our reading
+
+    nanos = System.nanoTime();
+    result = anchorMillis + ((nanos - anchorNanos) / 1000000);
+    difference = ShowDateTime1Clock.millis() - result;
+    if ((difference > RESYNC_LIMIT) || (difference < (- RESYNC_LIMIT)))
+    {
+      anchorMillis = result = ShowDateTime1Clock.millis(); // clock was set
+      anchorNanos = nanos;
+      lastMillis = result;
+      return(result);
+    }
+    if (difference > 1)           // slowly catch up with system clock
+      anchorMillis ++;
+    else if (difference < -1)     // slowly fall back to system clock
+      anchorMillis --;
+    result = Math.max(lastMillis, (anchorMillis + ((nanos - anchorNanos)
+      / 1000000)));               // never go backwards
+    lastMillis = result;
+    return(result);
+  }
+
+/*
+  decode() method
+
+  Get the current text from our clock into <display> as plain characters.
+*/
+  void decode()
+  {
+    char[] source;                // characters from clock
+    int length;                   // number of characters in <source>
+
+    if (clock.isCompiled())       // no String needed
+    {
+      source = clock.buffer;
+      length = clock.length;
+    }
+    else                          // SimpleDateFormat made a String anyway
+    {
+      source = clock.getText().toCharArray();
+      length = source.length;
+    }
+    if (display.length < length)
+      display = new char[length * 2];
+    count = ShowDateTime1Text.isHtml(source, length)
+      ? ShowDateTime1Text.decodeHtml(source, length, display) : -1;
+    if (count < 0)                // not simple HTML, draw characters as is
+    {
+      System.arraycopy(source, 0, display, 0, length);
+      count = length;
+    }
+  }
+
+/*
+  findGlyph() method
+
+  Return the index of the cached glyph for a character, drawing it if
+  necessary.  Each glyph is an array of pixels, one line high, drawn in our
+  colors with the same anti-aliasing as JLabel.  Clocks have few different
+  characters, so a linear search is faster than hashing.
+*/
+  int findGlyph(char ch)
+  {
+    Graphics2D gr;                // graphics context for drawing one glyph
+    GlyphVector glyph;            // Java's glyph for this character
+    int i;                        // index variable
+    BufferedImage image;          // image for drawing one glyph
+    int width;                    // width of glyph in pixels
+
+    for (i = 0; i < glyphCount; i ++)
+      if (glyphChars[i] == ch)
+        return(i);
+    if (glyphCount == glyphChars.length) // grow arrays as necessary
+    {
+      char[] moreChars = new char[glyphCount * 2];
+      int[][] morePixels = new int[glyphCount * 2][];
+      int[] moreWidths = new int[glyphCount * 2];
+      System.arraycopy(glyphChars, 0, moreChars, 0, glyphCount);
+      System.arraycopy(glyphPixels, 0, morePixels, 0, glyphCount);
+      System.arraycopy(glyphWidths, 0, moreWidths, 0, glyphCount);
+      glyphChars = moreChars;
+      glyphPixels = morePixels;
+      glyphWidths = moreWidths;
+    }
+    glyph = glyphFont.createGlyphVector(getFontMetrics(glyphFont)
+      .getFontRenderContext(), new char[] { ch });
+    width = Math.max(1, (int) Math.round(glyph.getLogicalBounds()
+      .getWidth()));
+    image = new BufferedImage(width, glyphHeight, BufferedImage.TYPE_INT_RGB);
+    gr = image.createGraphics();
+    gr.setColor(glyphBack);
+    gr.fillRect(0, 0, width, glyphHeight);
+    if (hints != null)
+      gr.addRenderingHints(hints);
+    gr.setColor(glyphFore);
+    gr.drawGlyphVector(glyph, 0, glyphAscent);
+    gr.dispose();
+    glyphChars[glyphCount] = ch;
+    glyphPixels[glyphCount] = image.getRGB(0, 0, width, glyphHeight, null, 0,
+      width);
+    glyphWidths[glyphCount] = width;
+    return(glyphCount ++);
+  }
+
+/*
+  paintFrame() method
+
+  Draw one frame into the given graphics context: background, and then each
+  line of text, centered as a block like ShowDateTime1Label.  Java2D creates
+  objects when drawing text or small images, so glyphs are copied into one
+  image for the block of text, and that image is drawn once.
+*/
+  void paintFrame(Graphics2D gr)
+  {
+    int back;                     // background color in RGB
+    int height;                   // height of block in pixels
+    int i, k;                     // index variables
+    int index;                    // index of cached glyph
+    int left, top;                // position of block on canvas
+    int lines;                    // number of lines
+    int stride;                   // width of <block> image in pixels
+    int width, widest;            // width of current line, widest line
+    int x, y;                     // position of next glyph in block
+
+    if ((getFont() != glyphFont) || (getBackground() != glyphBack)
+      || (getForeground() != glyphFore)) // new font or colors, new glyphs
+    {
+      FontMetrics metrics = getFontMetrics(getFont());
+      glyphAscent = metrics.getAscent();
+      glyphBack = getBackground();
+      glyphCount = 0;
+      glyphFont = getFont();
+      glyphFore = getForeground();
+      glyphHeight = metrics.getHeight();
+    }
+    gr.setColor(glyphBack);
+    gr.fillRect(0, 0, getWidth(), getHeight());
+
+    lines = 1;                    // measure widest line
+    width = widest = 0;
+    for (i = 0; i < count; i ++)
+    {
+      if (display[i] == '\n')
+      {
+        lines ++;
+        width = 0;
+      }
+      else
+      {
+        index = findGlyph(display[i]); // may grow <glyphWidths>, so first
+        width += glyphWidths[index];
+        widest = Math.max(widest, width);
+      }
+    }
+    if (widest == 0)              // nothing to draw
+      return;
+    height = lines * glyphHeight;
+    if ((block == null) || (block.getWidth() < widest) || (block.getHeight()
+      < height))                  // grow block image as necessary
+    {
+      block = new BufferedImage(Math.max(widest, ((block == null) ? 0
+        : block.getWidth())), Math.max(height, ((block == null) ? 0
+        : block.getHeight())), BufferedImage.TYPE_INT_RGB);
+      blockPixels = ((DataBufferInt) block.getRaster().getDataBuffer())
+        .getData();
+    }
+
+    back = glyphBack.getRGB();
+    stride = block.getWidth();
+    Arrays.fill(blockPixels, 0, (stride * height), back);
+    x = y = 0;
+    for (i = 0; i < count; i ++)
+    {
+      if (display[i] == '\n')
+      {
+        x = 0;
+        y += glyphHeight;
+        continue;
+      }
+      index = findGlyph(display[i]);
+      for (k = 0; k < glyphHeight; k ++)
+        System.arraycopy(glyphPixels[index], (k * glyphWidths[index]),
+          blockPixels, (((y + k) * stride) + x), glyphWidths[index]);
+      x += glyphWidths[index];
+    }
+    left = (getWidth() - widest) / 2;
+    top = (getHeight() - height) / 2;
+    gr.drawImage(block, left, top, (left + widest), (top + height), 0, 0,
+      widest, height, null);
+  }
+
+/*
+  render() method
+
+  Update our clock and draw one frame, unless our window can't be seen.
+  Return true if we drew anything.
+*/
+  boolean render(long now)
+  {
+    if (window.suspended || (isShowing() == false) || (getWidth() <= 0)
+      || (getHeight() <= 0))
+    {
+      return(false);
+    }
+    if (strategy == null)         // first frame for this canvas
+    {
+      createBufferStrategy(2);
+      strategy = getBufferStrategy();
+    }
+    if (clock.update(now) || (count < 0))
+      decode();
+
+    do                            // standard loop for BufferStrategy
+    {
+      do
+      {
+        Graphics2D gr = (Graphics2D) strategy.getDrawGraphics();
+        paintFrame(gr);
+        gr.dispose();
+      } while (strategy.contentsRestored());
+      strategy.show();
+    } while (strategy.contentsLost());
+    if (ShowDateTime1Window.painted == false) // first clock on the screen
+      ShowDateTime1Window.firstPaint();
+    return(true);
+  }
+
+/*
+  run() method
+
+  The drawing thread: draw all canvases, and then wait for the next frame.
+  Frame times are fixed steps from the start, so that small delays don't
+  accumulate; after a long delay, frames that were missed are dropped.
+*/
+  public void run()
+  {
+    boolean drawn;                // true if any canvas was drawn
+    int i;                        // index variable
+    ShowDateTime1Metrics metrics; // statistics, or null if not wanted
+    long next;                    // when next frame is due, in nanoseconds
+    long now;                     // current time in milliseconds
+    long start;                   // start of frame in nanoseconds
+    long wait;                    // nanoseconds until next frame
+
+    next = System.nanoTime();
+    while (true)
+    {
+      metrics = ShowDateTime1Metrics.active;
+      start = System.nanoTime();
+      if (metrics != null)        // lateness is from frame time
+        metrics.record(ShowDateTime1Metrics.LATENESS, (start - next));
+      now = currentMillis();      // one clock reading for all
+      drawn = false;
+      synchronized (canvases)     // windows may close while we draw
+      {
+        for (i = 0; i < canvases.size(); i ++)
+        {
+          try { drawn |= canvases.get(i).render(now); }
+          catch (IllegalStateException ise) { /* window is closing */ }
+        }
+      }
+      Toolkit.getDefaultToolkit().sync(); // flush drawing to screen
+      if (metrics != null)
+      {
+        synchronized (metrics)    // shared with readers
+        {
+          metrics.record(ShowDateTime1Metrics.REPAINT, (System.nanoTime()
+            - start));
+          metrics.frames ++;
+        }
+      }
+
+      next += framePeriod;
+      wait = next - System.nanoTime();
+      if (wait < 0)               // missed at least one frame
+      {
+        if (metrics != null)
+          synchronized (metrics) { metrics.droppedFrames += 1 + ((- wait)
+            / framePeriod); }
+        next += (((- wait) / framePeriod) + 1) * framePeriod;
+        wait = next - System.nanoTime();
+      }
+      if (drawn == false)         // nothing can be seen, so rest
+      {
+        wait = Math.max(wait, IDLE_NANOS);
+        next = System.nanoTime() + wait;
+      }
+      java.util.concurrent.locks.LockSupport.parkNanos(wait);
+    }
+  }
+
+/*
+  start() method
+
+  Add a canvas to be drawn, and start the drawing thread if necessary.  The
+  frame rate is the highest rate requested by any window, where zero means
+  the refresh rate of the window's screen.
+*/
+  static void start(ShowDateTime1Canvas canvas, int rate,
+    GraphicsConfiguration screen)
+  {
+    if (rate == 0)                // use screen's refresh rate
+    {
+      DisplayMode mode = screen.getDevice().getDisplayMode();
+      rate = (mode == null) ? 0 : mode.getRefreshRate();
+      if (rate <= 0)              // DisplayMode.REFRESH_RATE_UNKNOWN
+        rate = DEFAULT_RATE;
+    }
+    synchronized (canvases)
+    {
+      canvases.add(canvas);
+      if ((framePeriod == 0) || (framePeriod > (1000000000L / rate)))
+        framePeriod = 1000000000L / rate;
+      if (thread == null)
+      {
+        anchorMillis = lastMillis = ShowDateTime1Clock.millis();
+        anchorNanos = System.nanoTime();
+        thread = new Thread(canvas, "ShowDateTime1Canvas");
+        thread.setDaemon(true);   // windows decide when program ends
+        thread.setPriority(Thread.NORM_PRIORITY + 1); // ahead of background
+        thread.start();
+      }
+    }
+  }
+
+} // end of ShowDateTime1Canvas class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Clock class
+
+  This class is where the date and time come from.  Normally that's the system
+  clock, and no object is created.  For testing, the -z option replaces it
+  with a virtual clock that starts at a chosen time and runs faster than real
+  time, or that steps straight from one change in the text to the next, so
+  that a day of clock ticks, changes to daylight saving time, midnight, and
+  leap days can be watched in seconds or minutes.  Everything that reads the
+  time or waits for the next tick asks this class: delays in virtual time are
+  converted to real delays for timers and sleeps.  (ShowDateTime1Bench uses a
+  stepping clock without any window, for soak tests.)
+*/
+
+class ShowDateTime1Clock
+{
+  /* constants */
+
+  static final int STEP_DELAY = 100; // real milliseconds between steps
+
+  /* class variables */
+
+  static ShowDateTime1Clock active; // virtual clock, or null for system clock
+
+  /* instance variables */
+
+  long anchorMillis;              // virtual time at <anchorNanos>
+  long anchorNanos;               // real time from System.nanoTime()
+  int speed;                      // virtual milliseconds per real, 0 = steps
+
+/*
+  constructor
+
+  Start a virtual clock at the given time in milliseconds, running at the
+  given speed, or only moving by steps if the speed is zero.
+*/
+  public ShowDateTime1Clock(long start, int speed)
+  {
+    this.anchorMillis = start;
+    this.anchorNanos = System.nanoTime();
+    this.speed = speed;
+  }
+
+/*
+  advance() method
+
+  Move a stepping clock forward to the given time, never backwards.
+*/
+  synchronized void advance(long target)
+  {
+    if (target > anchorMillis)
+      anchorMillis = target;
+  }
+
+/*
+  millis() method
+
+  Return the current time in milliseconds since 1970, from the system clock or
+  from our virtual clock.
+*/
+  static long millis()
+  {
+    ShowDateTime1Clock clock = active; // same clock for whole call
+    return((clock == null) ? System.currentTimeMillis() : clock.read());
+  }
+
+/*
+  read() method
+
+  Return the time on this virtual clock.  Whole real milliseconds are scaled
+  separately from the remaining nanoseconds, since nanoseconds times a large
+  speed overflows a long after a few hours.
+*/
+  synchronized long read()
+  {
+    long elapsed;                 // real nanoseconds since <anchorNanos>
+
+    if (speed == 0)               // stepping clock: time stands still
+      return(anchorMillis);
+    elapsed = System.nanoTime() - anchorNanos;
+    return(anchorMillis + ((elapsed / 1000000) * speed)
+      + ((elapsed % 1000000) * speed / 1000000));
+  }
+
+/*
+  realDelay() method
+
+  Convert a delay in milliseconds of clock time, starting at the given clock
+  time, to real milliseconds for a timer or sleep.  A stepping clock jumps to
+  the end of the delay now, and the caller waits a fixed real time before
+  looking at the clock again.
+*/
+  static int realDelay(long now, int delay)
+  {
+    ShowDateTime1Clock clock = active; // same clock for whole call
+    if (clock == null)            // system clock, the usual case
+      return(delay);
+    if (clock.speed == 0)         // step straight to next change
+    {
+      clock.advance(now + delay);
+      return(STEP_DELAY);
+    }
+    return((delay + clock.speed - 1) / clock.speed); // round up
+  }
+
+} // end of ShowDateTime1Clock class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Config class
+
+  This class reads more options for a window from a file, for the -a option,
+  and watches the file so that changes are shown without starting the program
+  again.  The file has one option per line, written as on the command line but
+  without quotes.  Blank lines and lines starting with a number sign (#) are
+  ignored.  Only options that can be changed in a running window are allowed:
+  -b, -d, -f, -p, -s, -t, -w, and -x.  Options in the file are applied after
+  the window's command-line options, so the file wins.
+
+  One thread watches the directories of all files, with the NIO WatchService.
+  Editors often write a file more than once when saving it, so we wait until
+  there have been no changes for SETTLE_DELAY milliseconds, and then read each
+  changed file once.  The whole file is read and checked before anything is
+  changed; a file with errors is reported on standard error and ignored, and
+  the window keeps its current options.  New options are given to the window
+  on the event dispatch thread, all at once.
+*/
+
+class ShowDateTime1Config implements Runnable
+{
+  /* constants */
+
+  static final String LIVE_OPTIONS = "bdfpstwx"; // allowed in options file
+  static final int SETTLE_DELAY = 300; // quiet milliseconds before reading
+
+  /* class variables */
+
+  static Vector<ShowDateTime1Config> configs
+    = new Vector<ShowDateTime1Config>(); // all files being watched
+  static Thread thread;           // one thread watches all files
+  static java.nio.file.WatchService watcher; // tells us when files change
+
+  /* instance variables */
+
+  ShowDateTime1Options base;      // command-line options, before the file
+  java.nio.file.Path path;        // full path name of options file
+  ShowDateTime1Options pending;   // new options not yet applied, or null
+  ShowDateTime1Window window;     // window that uses these options
+
+/*
+  constructor
+*/
+  public ShowDateTime1Config(ShowDateTime1Window window,
+    ShowDateTime1Options base)
+  {
+    this.base = base;
+    this.path = java.nio.file.Paths.get(base.configFile).toAbsolutePath()
+      .normalize();
+    this.pending = null;
+    this.window = window;
+  }
+
+/*
+  applyOptions() method
+
+  On the event dispatch thread, give new options to our window, if it is
+  still open.
+*/
+  void applyOptions(ShowDateTime1Options options)
+  {
+    if (ShowDateTime1Window.windows.contains(window))
+      window.applyOptions(options);
+  }
+
+/*
+  firstOptions() method
+
+  Return the options for a new window.  Errors are fatal, the same as errors
+  on the command line.
+*/
+  ShowDateTime1Options firstOptions()
+  {
+    try { return(readOptions()); }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't read options from " + base.configFile + ": "
+        + ioe.getMessage());
+    }
+    catch (IllegalArgumentException iae)
+    {
+      System.err.println(iae.getMessage());
+    }
+    System.exit(-1);
+    return(null);                 // keep the compiler happy
+  }
+
+/*
+  readOptions() method
+
+  Return a copy of the command-line options with the options from our file
+  applied.  Bad options throw an IllegalArgumentException with the line
+  number.
+*/
+  ShowDateTime1Options readOptions() throws IOException
+  {
+    BufferedReader input;         // for reading lines from file
+    String line;                  // one line from file
+    int lineNumber;               // line number in file, for errors
+    boolean mswinFlag;            // true if running on Microsoft Windows
+    ShowDateTime1Options result;  // options for window
+
+    mswinFlag = System.getProperty("os.name").startsWith("Windows");
+    result = base.copy();
+    input = new BufferedReader(new FileReader(path.toFile()));
+    try
+    {
+      lineNumber = 0;
+      while ((line = input.readLine()) != null)
+      {
+        lineNumber ++;
+        line = line.trim();
+        if ((line.length() == 0) || line.startsWith("#"))
+          continue;               // ignore blank lines and comments
+        if ((line.length() < 2) || ((line.charAt(0) != '-') && ((mswinFlag
+          == false) || (line.charAt(0) != '/'))) || (LIVE_OPTIONS.indexOf(
+          Character.toLowerCase(line.charAt(1))) < 0))
+        {
+          throw new IllegalArgumentException("Option not allowed on line "
+            + lineNumber + " of " + base.configFile + ": " + line);
+        }
+        try
+        {
+          if (ShowDateTime1.parseOption(result, line, mswinFlag) == false)
+            throw new IllegalArgumentException("Option not recognized: "
+              + line);
+        }
+        catch (IllegalArgumentException iae) // add where the error is
+        {
+          throw new IllegalArgumentException(iae.getMessage() + " (line "
+            + lineNumber + " of " + base.configFile + ")");
+        }
+      }
+    }
+    finally { input.close(); }
+    return(result);
+  }
+
+/*
+  reload() method
+
+  Read our file again after it has changed, on the watching thread, and give
+  the new options to the event dispatch thread.  If the window hasn't yet
+  taken the previous options, the newer options replace them.
+*/
+  void reload()
+  {
+    ShowDateTime1Options options; // new options for window
+
+    try { options = readOptions(); }
+    catch (IOException ioe)       // file deleted, being renamed, etc
+    {
+      System.err.println("Options not changed; can't read " + base.configFile
+        + ": " + ioe.getMessage());
+      return;
+    }
+    catch (IllegalArgumentException iae)
+    {
+      System.err.println("Options not changed: " + iae.getMessage());
+      return;
+    }
+    synchronized (this)
+    {
+      if (pending == null)        // nothing waiting, so ask for a call
+        SwingUtilities.invokeLater(this);
+      pending = options;
+    }
+  }
+
+/*
+  run() method
+
+  On the event dispatch thread, give new options to our window.  Otherwise,
+  this is the thread that watches all options files.
+*/
+  public void run()
+  {
+    HashSet<ShowDateTime1Config> changed; // files changed, not yet read
+    int i;                        // index variable
+    java.nio.file.WatchKey key;   // events for one directory, or null
+
+    if (SwingUtilities.isEventDispatchThread()) // apply newest options
+    {
+      ShowDateTime1Options options;
+      synchronized (this) { options = pending; pending = null; }
+      if (options != null)
+        applyOptions(options);
+      return;
+    }
+
+    changed = new HashSet<ShowDateTime1Config>();
+    while (true)
+    {
+      try
+      {
+        if (changed.isEmpty())    // wait for something to happen
+          key = watcher.take();
+        else                      // wait for changes to settle
+          key = watcher.poll(SETTLE_DELAY,
+            java.util.concurrent.TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException ie) { continue; }
+      if (key == null)            // quiet for long enough, read files
+      {
+        Iterator<ShowDateTime1Config> iterator = changed.iterator();
+        while (iterator.hasNext())
+          iterator.next().reload();
+        changed.clear();
+        continue;
+      }
+      java.nio.file.Path folder = (java.nio.file.Path) key.watchable();
+      Iterator<java.nio.file.WatchEvent<?>> events = key.pollEvents()
+        .iterator();
+      while (events.hasNext())
+      {
+        java.nio.file.WatchEvent<?> event = events.next();
+        java.nio.file.Path name = (event.kind() == java.nio.file
+          .StandardWatchEventKinds.OVERFLOW) ? null : folder.resolve(
+          (java.nio.file.Path) event.context()); // null if events were lost
+        synchronized (configs)
+        {
+          for (i = 0; i < configs.size(); i ++)
+          {
+            ShowDateTime1Config config = configs.get(i);
+            if ((name == null) ? folder.equals(config.path.getParent())
+              : name.equals(config.path))
+            {
+              changed.add(config);
+            }
+          }
+        }
+      }
+      key.reset();                // keep watching this directory
+    }
+  }
+
+/*
+  watch() method
+
+  Start watching our file, and start the watching thread if necessary.  Files
+  are watched through their directory, since editors often replace a file
+  with a new one.  If the file can't be watched, the window keeps the options
+  it has.
+*/
+  void watch()
+  {
+    synchronized (configs)
+    {
+      try
+      {
+        if (watcher == null)      // first file to be watched
+          watcher = java.nio.file.FileSystems.getDefault().newWatchService();
+        path.getParent().register(watcher,
+          java.nio.file.StandardWatchEventKinds.ENTRY_CREATE,
+          java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY);
+                                  // same key if directory already watched
+      }
+      catch (IOException ioe)
+      {
+        System.err.println("Can't watch " + base.configFile
+          + " for changes: " + ioe.getMessage());
+        return;
+      }
+      configs.add(this);
+      if (thread == null)
+      {
+        thread = new Thread(this, "ShowDateTime1Config");
+        thread.setDaemon(true);   // windows decide when program ends
+        thread.setPriority(Thread.MIN_PRIORITY); // behind clocks
+        thread.start();
+      }
+    }
+  }
+
+} // end of ShowDateTime1Config class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Export class
+
+  This class renders the clock as pixels, for the -v option, instead of
+  showing a window.  The same label as a window would have (font, colors,
+  -w size, and simple HTML or otherwise) is painted into an image each time
+  the text changes.  Frames go to numbered PNG files, or into a raw file that
+  is memory mapped, for another program to read.  Raw files are 24-bit RGB
+  (three bytes per pixel) if the name ends with ".rgb", and otherwise 32-bit
+  ARGB pixels in the computer's own byte order.  Only rows that have changed
+  are written to a raw file.  Images and buffers are created once.
+
+  FileChannel.map() extends a file that is smaller than the mapping, and a
+  device such as /dev/fb0 reports a size of zero, so devices are refused with
+  a clear message instead of a failed attempt to change their size.  A file
+  that is larger, from an earlier run with a bigger -w size, is truncated, so
+  that readers don't find old pixels after our frame.
+
+  This runs with java.awt.headless set to true, so no display is needed.  The
+  label is never shown on a screen, so it's safe to use outside the event
+  dispatch thread.
+*/
+
+class ShowDateTime1Export
+{
+  /* instance variables */
+
+  int[] current;                  // pixels of newest frame, from <image>
+  String fileName;                // where frames go
+  int frame;                      // number of frames written
+  int height, width;              // size of frame in pixels
+  BufferedImage image;            // image that we paint
+  IntBuffer ints;                 // <mapped> as 32-bit pixels, or null
+  ShowDateTime1Label label;       // label that paints our text
+  MappedByteBuffer mapped;        // raw output file, or null for PNG
+  int[] previous;                 // pixels of previous frame
+  byte[] rowBytes;                // one row of 24-bit RGB pixels, or null
+
+/*
+  constructor
+
+  Create our label and image, and map the output file if it is raw.
+*/
+  public ShowDateTime1Export(ShowDateTime1Options options) throws IOException
+  {
+    FileChannel channel;          // raw output file
+    long size;                    // bytes in raw output file
+
+    fileName = options.exportFile;
+    frame = 0;
+    height = options.windowHeight;
+    width = options.windowWidth;
+    image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    current = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    previous = new int[current.length]; // zero is never an opaque pixel
+    label = new ShowDateTime1Label("", JLabel.CENTER);
+    label.setBackground(new Color(options.panelColor));
+    label.setBounds(0, 0, width, height);
+    label.setFont(new Font(options.fontName, Font.PLAIN, options.fontSize));
+    label.setForeground(new Color(options.textColor));
+    label.setOpaque(true);
+
+    if (fileName.toLowerCase().endsWith(".png") == false) // raw pixels
+    {
+      if (new File(fileName).exists() && (new File(fileName).isFile()
+        == false))
+      {
+        throw new IOException("not a regular file (devices can't be mapped)");
+      }
+      channel = new RandomAccessFile(fileName, "rw").getChannel();
+      try
+      {
+        size = (fileName.toLowerCase().endsWith(".rgb") ? 3L : 4L) * width
+          * height;
+        channel.truncate(size);   // no effect unless file is larger
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (fileName.toLowerCase().endsWith(".rgb"))
+          rowBytes = new byte[3 * width];
+        else
+        {
+          mapped.order(ByteOrder.nativeOrder());
+          ints = mapped.asIntBuffer();
+        }
+      }
+      finally
+      {
+        channel.close();          // mapping stays valid
+      }
+    }
+  }
+
+/*
+  exportFrames() method
+
+  Run the -v option.  Never returns.
+*/
+  static void exportFrames(ShowDateTime1Options options)
+  {
+    ShowDateTime1Export export;   // our image and output file
+    long now;                     // current time in milliseconds
+    ShowDateTime1Text text;       // date/time text, updated in place
+
+    if (System.getProperty("java.awt.headless") == null) // before any AWT
+      System.setProperty("java.awt.headless", "true");
+    try
+    {
+      export = new ShowDateTime1Export(options);
+      text = (options.scheduleFile != null) ? new ShowDateTime1Schedule(
+        options) : new ShowDateTime1Text((SimpleDateFormat) options
+        .formatDate.clone());
+      while (true)
+      {
+        now = ShowDateTime1Clock.millis();
+        if (text.update(now))     // has date or time changed?
+        {
+          export.label.setText(text.getText());
+          export.writeFrame();
+          ShowDateTime1.firstShown(); // -y report after first frame
+        }
+        try { Thread.sleep(ShowDateTime1Clock.realDelay(now, text.nextDelay(
+          now))); }
+        catch (InterruptedException ie) { /* ignore */ }
+      }
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't write frames to " + options.exportFile + ": "
+        + ioe.getMessage());
+      System.exit(-1);
+    }
+  }
+
+/*
+  paintFrame() method
+
+  Paint our label into our image, with anti-aliased text, since there are no
+  desktop settings without a display.
+*/
+  void paintFrame()
+  {
+    Graphics2D gr = image.createGraphics();
+    gr.setClip(0, 0, width, height);
+    gr.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+      RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    label.paintLabel(gr);
+    gr.dispose();
+  }
+
+/*
+  pngName() method
+
+  Return the file name for one PNG frame, with a six-digit frame number
+  before the extension: "clock.png" becomes "clock000001.png".
+*/
+  String pngName(int number)
+  {
+    String digits = String.valueOf(1000000 + number).substring(1);
+    return(fileName.substring(0, (fileName.length() - 4)) + digits
+      + fileName.substring(fileName.length() - 4));
+  }
+
+/*
+  writeFrame() method
+
+  Paint a new frame and write it.  Raw files get only the rows that changed.
+*/
+  void writeFrame() throws IOException
+  {
+    int i;                        // index variable
+    int pixel;                    // one ARGB pixel
+    int row;                      // start of current row in pixel arrays
+    int y;                        // row number
+
+    paintFrame();
+    frame ++;
+    if (mapped == null)           // numbered PNG files
+    {
+      javax.imageio.ImageIO.write(image, "png", new File(pngName(frame)));
+      return;
+    }
+    for (y = 0; y < height; y ++)
+    {
+      row = y * width;
+      for (i = 0; (i < width) && (current[row + i] == previous[row + i]);
+        i ++) ;
+      if (i == width)             // row hasn't changed
+        continue;
+      System.arraycopy(current, row, previous, row, width);
+      if (ints != null)           // 32-bit ARGB
+      {
+        ints.position(row);
+        ints.put(current, row, width);
+      }
+      else                        // 24-bit RGB
+      {
+        for (i = 0; i < width; i ++)
+        {
+          pixel = current[row + i];
+          rowBytes[(3 * i)] = (byte) (pixel >> 16);
+          rowBytes[(3 * i) + 1] = (byte) (pixel >> 8);
+          rowBytes[(3 * i) + 2] = (byte) pixel;
+        }
+        mapped.position(3 * row);
+        mapped.put(rowBytes);
+      }
+    }
+  }
+
+} // end of ShowDateTime1Export class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Feed class
+
+  This class is one date format served by the time server to any number of
+  connections.  The text is formatted once per tick, and then converted once
+  to bytes for line clients and once for HTTP event clients.  Every
+  connection sends the same read-only buffers.
+*/
+
+class ShowDateTime1Feed
+{
+  /* instance variables */
+
+  boolean changed;                // true if text changed on this tick
+  ByteBuffer event;               // text as an HTTP server-sent event
+  ByteBuffer line;                // text as one line of plain TCP
+  int links;                      // number of connections using this feed
+  String pattern;                 // date format pattern from clients
+  ShowDateTime1Text text;         // date/time text, updated in place
+
+/*
+  constructor
+
+  The pattern must already have been checked by SimpleDateFormat.
+*/
+  public ShowDateTime1Feed(String pattern)
+  {
+    SimpleDateFormat format = new SimpleDateFormat(pattern);
+    this.links = 0;
+    this.pattern = pattern;
+    this.text = new ShowDateTime1Text(ShowDateTime1Format.shared(format),
+      format);                    // clients with the same pattern share this
+    update(ShowDateTime1Clock.millis()); // so there is always something to send
+  }
+
+/*
+  update() method
+
+  Update our text for the given time, and create new buffers if it changed.
+  Return true if the text has changed.
+*/
+  boolean update(long now)
+  {
+    String value;                 // new text, on one line
+
+    changed = text.update(now) || (line == null);
+    if (changed)
+    {
+      value = text.getText().replace('\r', ' ').replace('\n', ' ');
+      try
+      {
+        line = ByteBuffer.wrap((value + "\n").getBytes("UTF-8"))
+          .asReadOnlyBuffer();
+        event = ByteBuffer.wrap(("data: " + value + "\n\n").getBytes(
+          "UTF-8")).asReadOnlyBuffer();
+      }
+      catch (UnsupportedEncodingException uee) { /* UTF-8 always exists */ }
+    }
+    return(changed);
+  }
+
+} // end of ShowDateTime1Feed class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Format class
+
+  This class is a SimpleDateFormat pattern that has been compiled into a list
+  of segments: literal text, numeric fields, and text fields (names of months,
+  days, AM/PM, eras, time zones).  Literal text such as '<html>' and '<br>' is
+  prepared once.  Names are prepared once by asking SimpleDateFormat itself,
+  so they are the same as before for any locale.  A compiled format does not
+  depend on the time zone, and may be shared by ShowDateTime1Text objects for
+  different zones.  Formats that we don't understand can't be compiled.
+*/
+
+class ShowDateTime1Format
+{
+  /* constants */
+
+  static final int MAX_DIGITS = 16; // longest numeric field we accept
+
+  /* class variables */
+
+  static HashMap<String, ShowDateTime1Format> sharedFormats
+    = new HashMap<String, ShowDateTime1Format>(); // compiled, by pattern
+
+  /* instance variables */
+
+  int count;                      // number of segments
+  int[] counts;                   // number of pattern letters for each field
+  char[] letters;                 // pattern letter for each field, or zero
+  char[][] literals;              // literal text for each segment, or null
+  char[][][] names;               // table of names for text fields, or null
+  String[] patterns;              // single-field pattern for time zones
+  int unit;                       // smallest Calendar field in date format
+  char zeroDigit;                 // digit zero from formatter's locale
+
+/*
+  constructor
+
+  Use compile() to create an object, so that errors can be reported.
+*/
+  private ShowDateTime1Format() { }
+
+/*
+  compile() method
+
+  Compile the pattern from a SimpleDateFormat.  Return null if the pattern
+  uses anything we don't handle, or if our results are different from the
+  formatter's results.  (The caller then uses SimpleDateFormat directly.)
+*/
+  static ShowDateTime1Format compile(SimpleDateFormat format)
+  {
+    Calendar calendar;            // sample calendar for making name tables
+    char ch;                      // one character from pattern string
+    ShowDateTime1Text check;      // for testing our results
+    StringBuffer fields;          // 'f' for field or 'l' for literal in list
+    int i, k;                     // index variables
+    Vector<String> list;          // segments found so far, as strings
+    StringBuffer literal;         // literal text not yet added to list
+    String pattern;               // pattern string from formatter
+    boolean quoted;               // true if inside quoted literal text
+    ShowDateTime1Format result;   // our compiled format
+    SimpleDateFormat sample;      // formatter for making name tables
+
+    if (((format.getCalendar() instanceof GregorianCalendar) == false)
+      || ((format.getNumberFormat() instanceof DecimalFormat) == false))
+    {
+      return(null);               // Japanese imperial calendar, etc
+    }
+
+    /* Split the pattern into literal text and runs of the same letter.  The
+    rules for quotes are the same as SimpleDateFormat: text inside quotes is
+    literal, and two quotes are one quote, inside or outside quoted text. */
+
+    fields = new StringBuffer();
+    list = new Vector<String>();
+    literal = new StringBuffer();
+    pattern = format.toPattern();
+    quoted = false;
+    i = 0;
+    while (i < pattern.length())
+    {
+      ch = pattern.charAt(i);
+      if (ch == '\'')             // start or end of quoted text
+      {
+        if (((i + 1) < pattern.length()) && (pattern.charAt(i + 1) == '\''))
+        {
+          literal.append(ch);     // two quotes are one quote
+          i += 2;
+        }
+        else
+        {
+          quoted = ! quoted;
+          i ++;
+        }
+      }
+      else if (quoted || (((ch < 'A') || (ch > 'Z')) && ((ch < 'a')
+        || (ch > 'z'))))
+      {
+        literal.append(ch);       // literal text
+        i ++;
+      }
+      else                        // a run of the same pattern letter
+      {
+        if (literal.length() > 0)
+        {
+          fields.append('l');
+          list.add(literal.toString()); // finish previous literal text
+          literal.setLength(0);
+        }
+        k = i;
+        while ((i < pattern.length()) && (pattern.charAt(i) == ch))
+          i ++;
+        fields.append('f');
+        list.add(pattern.substring(k, i)); // like "yyyy"
+        if ((i - k) > MAX_DIGITS) // silly, but SimpleDateFormat allows it
+          return(null);
+      }
+    }
+    if (literal.length() > 0)
+    {
+      fields.append('l');
+      list.add(literal.toString()); // finish previous literal text
+    }
+
+    /* Create the compiled format. */
+
+    result = new ShowDateTime1Format();
+    result.count = list.size();
+    result.counts = new int[result.count];
+    result.letters = new char[result.count];
+    result.literals = new char[result.count][];
+    result.names = new char[result.count][][];
+    result.patterns = new String[result.count];
+    result.unit = ShowDateTime1Ticker.findUnit(pattern);
+    result.zeroDigit = ((DecimalFormat) format.getNumberFormat())
+      .getDecimalFormatSymbols().getZeroDigit();
+    calendar = (Calendar) format.getCalendar().clone();
+    sample = (SimpleDateFormat) format.clone(); // same locale and symbols
+    sample.setLenient(true);
+
+    for (i = 0; i < result.count; i ++)
+    {
+      String segment = list.get(i);
+      if (fields.charAt(i) != 'f')
+      {
+        result.literals[i] = segment.toCharArray(); // literal text
+        continue;
+      }
+      ch = segment.charAt(0);
+      k = segment.length();
+      result.counts[i] = k;
+      result.letters[i] = ch;
+      switch (ch)
+      {
+        case 'D': case 'F': case 'H': case 'K': case 'S': case 'W': case 'Y':
+        case 'd': case 'h': case 'k': case 'm': case 's': case 'u': case 'w':
+        case 'y':
+          break;                  // numeric fields
+
+        case 'L': case 'M':       // month numbers or names
+          if (k >= 3)
+            result.names[i] = nameTable(sample, segment, calendar,
+              Calendar.MONTH, 0, 11);
+          break;
+
+        case 'E':                 // day names
+          result.names[i] = nameTable(sample, segment, calendar,
+            Calendar.DAY_OF_WEEK, Calendar.SUNDAY, Calendar.SATURDAY);
+          break;
+
+        case 'G':                 // era names
+          result.names[i] = nameTable(sample, segment, calendar,
+            Calendar.ERA, GregorianCalendar.BC, GregorianCalendar.AD);
+          break;
+
+        case 'a':                 // AM/PM markers
+          result.names[i] = nameTable(sample, segment, calendar,
+            Calendar.AM_PM, Calendar.AM, Calendar.PM);
+          break;
+
+        case 'X': case 'Z': case 'z': // time zones, formatted when they change
+          result.patterns[i] = segment;
+          break;
+
+        default:                  // something new that we don't understand
+          return(null);
+      }
+    }
+
+    /* Check our results against SimpleDateFormat for a spread of dates and
+    times, so that all months, weekdays, hours, etc, are tried. */
+
+    check = new ShowDateTime1Text(result, format);
+    for (i = 0; i < 24; i ++)
+    {
+      long time = System.currentTimeMillis() + (i * 2966461001L);
+                                  // 34 days, 7 hours, 61 seconds, etc
+      check.update(time);
+      if (check.getText().equals(format.format(new Date(time))) == false)
+        return(null);
+    }
+    return(result);
+
+  } // end of compile() method
+
+/*
+  shared() method
+
+  Compile a format, or return a previous result for the same pattern.  This is
+  only for formatters created by this program with the default locale.  Time
+  zones don't matter.  Patterns that can't be compiled are remembered, too.
+*/
+  static ShowDateTime1Format shared(SimpleDateFormat format)
+  {
+    String pattern = format.toPattern();
+    if (sharedFormats.containsKey(pattern) == false)
+      sharedFormats.put(pattern, compile(format));
+    return(sharedFormats.get(pattern));
+  }
+
+/*
+  nameTable() method
+
+  Make a table of names for one text field, by formatting sample dates with a
+  SimpleDateFormat that only has this field.  The table is indexed by the
+  Calendar value for the field.
+*/
+  static char[][] nameTable(SimpleDateFormat sample, String segment,
+    Calendar calendar, int field, int first, int last)
+  {
+    int i;                        // index variable
+    char[][] result;              // table of names
+
+    result = new char[last + 1][];
+    sample.applyPattern(segment); // only this field
+    for (i = first; i <= last; i ++)
+    {
+      calendar.clear();
+      calendar.set(2001, Calendar.JANUARY, 15, 12, 0, 0); // a safe midday
+      if (field == Calendar.DAY_OF_WEEK) // Sunday, 7 January 2001, plus days
+        calendar.set(Calendar.DAY_OF_MONTH, 7 + i - Calendar.SUNDAY);
+      else if (field == Calendar.AM_PM) // 6 AM or 6 PM
+        calendar.set(Calendar.HOUR_OF_DAY, (i == Calendar.AM) ? 6 : 18);
+      else
+        calendar.set(field, i);   // month or era
+      sample.setCalendar(calendar);
+      result[i] = sample.format(calendar.getTime()).toCharArray();
+    }
+    return(result);
+  }
+
+} // end of ShowDateTime1Format class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Label class
+
+  This is a JLabel that draws simple text itself.  JLabel understands HTML,
+  which is how our default date format gets two lines, but every call to
+  setText() with HTML makes Swing parse the HTML, build a new tree of views,
+  lay out the views, and repaint the whole label.  For text that has only the
+  <html> and <br> tags, and maybe a few character entities like &amp; or
+  &nbsp;, we keep a list of lines, each with a GlyphVector that is reused until
+  the line changes.  Only the characters that changed are repainted.  Like a
+  JLabel, lines are left aligned inside a block, and the block is centered.
+  Any other text is given to JLabel, which handles it as before.
+*/
+
+class ShowDateTime1Label extends JLabel
+{
+  /* constants */
+
+  static final long serialVersionUID = 1L; // JLabel is Serializable; we're not
+
+  /* instance variables (no initializers, since JLabel's constructor calls
+  setText() before our own constructor runs) */
+
+  GlyphVector[] glyphs;           // cached glyphs for each line, or null
+  String[] lines;                 // lines of simple text, or null for JLabel
+  long paintPending;              // when unpainted text was set, nanoseconds
+  String simpleText;              // original text when we draw it ourselves
+
+/*
+  constructor
+*/
+  public ShowDateTime1Label(String text, int align)
+  {
+    super(text, align);           // JLabel calls our setText()
+  }
+
+/*
+  blockLeft() method
+
+  Return the x coordinate for the left edge of our centered block of lines.
+  All glyph vectors must exist.
+*/
+  int blockLeft()
+  {
+    Insets insets = getInsets();
+    return(insets.left + ((getWidth() - insets.left - insets.right
+      - blockWidth()) / 2));
+  }
+
+/*
+  blockTop() method
+
+  Return the y coordinate for the top edge of our centered block of lines.
+*/
+  int blockTop()
+  {
+    Insets insets = getInsets();
+    return(insets.top + ((getHeight() - insets.top - insets.bottom
+      - (lines.length * lineHeight())) / 2));
+  }
+
+/*
+  blockWidth() method
+
+  Return the width in pixels of our widest line.  All glyph vectors must
+  exist.
+*/
+  int blockWidth()
+  {
+    int i;                        // index variable
+    int result;                   // widest line so far
+
+    result = 0;
+    for (i = 0; i < lines.length; i ++)
+      result = Math.max(result, lineWidth(glyphs[i]));
+    return(result);
+  }
+
+/*
+  getPreferredSize() method
+*/
+  public Dimension getPreferredSize()
+  {
+    if ((lines == null) || isPreferredSizeSet() || (makeGlyphs() == false))
+      return(super.getPreferredSize());
+    Insets insets = getInsets();
+    return(new Dimension((blockWidth() + insets.left + insets.right),
+      ((lines.length * lineHeight()) + insets.top + insets.bottom)));
+  }
+
+/*
+  getText() method
+*/
+  public String getText()
+  {
+    return((lines != null) ? simpleText : super.getText());
+  }
+
+/*
+  lineHeight() method
+
+  Return the height of one line in pixels.
+*/
+  int lineHeight()
+  {
+    return(getFontMetrics(getFont()).getHeight());
+  }
+
+/*
+  lineWidth() method
+
+  Return the width of one line in pixels.
+*/
+  static int lineWidth(GlyphVector line)
+  {
+    return((int) Math.ceil(line.getLogicalBounds().getWidth()));
+  }
+
+/*
+  makeGlyphs() method
+
+  Create glyph vectors for any lines that don't have them.  Return false if we
+  can't, because we don't have a font yet.
+*/
+  boolean makeGlyphs()
+  {
+    FontRenderContext context;    // anti-aliasing, etc, for our font
+    Font font;                    // our current font
+    int i;                        // index variable
+
+    font = getFont();
+    if (font == null)
+      return(false);
+    context = getFontMetrics(font).getFontRenderContext();
+    for (i = 0; i < lines.length; i ++)
+      if (glyphs[i] == null)
+        glyphs[i] = font.createGlyphVector(context, lines[i]);
+    return(true);
+  }
+
+/*
+  paintComponent() method
+
+  Paint from a cached image, if the -k option is given, or else paint
+  directly.
+*/
+  protected void paintComponent(Graphics g)
+  {
+    if ((paintPending != 0) && (ShowDateTime1Metrics.active != null))
+    {
+      ShowDateTime1Metrics.active.record(ShowDateTime1Metrics.REPAINT,
+        (System.nanoTime() - paintPending)); // we are painting now
+      paintPending = 0;
+    }
+    if ((ShowDateTime1Cache.active == null) || (isOpaque() == false)
+      || (ShowDateTime1Cache.active.paint(this, g) == false))
+    {
+      paintLabel(g);              // not copied from a rendered image
+    }
+    if (ShowDateTime1Window.painted == false) // first clock on the screen
+      ShowDateTime1Window.firstPaint();
+  }
+
+/*
+  paintLabel() method
+
+  JLabel paints text that isn't simple.  Otherwise, we paint our background
+  (if opaque) and draw each line that intersects the clipping rectangle.
+  JLabel can't paint our background, because its UI would also draw the text
+  from getText().
+*/
+  void paintLabel(Graphics g)
+  {
+    Rectangle clip;               // area that needs to be painted
+    Graphics2D gr;                // our copy of graphics context
+    int i;                        // index variable
+    int left, top;                // position of our centered block
+    int height;                   // height of one line in pixels
+    Map<?, ?> hints;              // desktop hints for drawing text
+
+    if (lines == null)            // not simple, JLabel does everything
+    {
+      super.paintComponent(g);
+      return;
+    }
+    clip = g.getClipBounds();
+    if (isOpaque())               // same as ComponentUI.update()
+    {
+      g.setColor(getBackground());
+      g.fillRect(0, 0, getWidth(), getHeight());
+    }
+    if (makeGlyphs() == false)    // no font yet
+      return;
+
+    gr = (Graphics2D) g.create();
+    hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty(
+      "awt.font.desktophints");   // same anti-aliasing as JLabel
+    if (hints != null)
+      gr.addRenderingHints(hints);
+    gr.setColor(getForeground());
+    height = lineHeight();
+    left = blockLeft();
+    top = blockTop();
+    for (i = 0; i < lines.length; i ++)
+    {
+      if ((clip == null) || ((clip.y < (top + height)) && (top < (clip.y
+        + clip.height))))
+      {
+        gr.drawGlyphVector(glyphs[i], left, (top + getFontMetrics(getFont())
+          .getAscent()));
+      }
+      top += height;
+    }
+    gr.dispose();
+  }
+
+/*
+  setFont() method
+
+  A new font means new glyphs for every line.
+*/
+  public void setFont(Font font)
+  {
+    super.setFont(font);          // JLabel repaints and revalidates
+    if (lines != null)
+      glyphs = new GlyphVector[lines.length];
+  }
+
+/*
+  setText() method
+
+  Show new text.  If the old and new text are both simple, then repaint only
+  the lines and characters that changed, unless the block of lines has moved.
+*/
+  public void setText(String text)
+  {
+    int after;                    // number of unchanged characters at end
+    int before;                   // number of unchanged characters at start
+    GlyphVector[] oldGlyphs;      // previous glyphs for each line
+    int oldLeft, oldWidth;        // position and width of previous block
+    String[] oldLines;            // previous lines of simple text
+    int height;                   // height of one line in pixels
+    int i;                        // index variable
+    int left, right;              // changed part of one line in pixels
+    ShowDateTime1Metrics metrics; // statistics, or null if not wanted
+    String[] newLines;            // new lines of simple text, or null
+    int pad;                      // extra pixels for italic overhang, etc
+
+    metrics = ShowDateTime1Metrics.active;
+    if ((metrics != null) && ((text == null) || (text.equals(getText())
+      == false)))
+    {
+      if (paintPending != 0)      // previous text was never painted
+        synchronized (metrics) { metrics.coalescedUpdates ++; }
+      else
+        paintPending = System.nanoTime();
+    }
+    newLines = ShowDateTime1Text.splitLines(text);
+    if (newLines == null)         // not simple, let JLabel do the work
+    {
+      lines = null;
+      glyphs = null;
+      simpleText = null;
+      super.setText(text);
+      return;
+    }
+    if (lines == null)            // changing from JLabel to simple text
+    {
+      super.setText(null);        // JLabel draws no text from now on
+      lines = newLines;
+      glyphs = new GlyphVector[lines.length];
+      simpleText = text;
+      revalidate();
+      repaint();
+      return;
+    }
+    if (text.equals(simpleText))  // same text as before?
+      return;
+
+    /* Find the old and new positions of our block of lines.  If anything has
+    moved, repaint everything. */
+
+    if (makeGlyphs() == false)    // no font yet, so nothing has been shown
+    {
+      lines = newLines;
+      glyphs = new GlyphVector[lines.length];
+      simpleText = text;
+      return;
+    }
+    oldGlyphs = glyphs;
+    oldLeft = blockLeft();
+    oldLines = lines;
+    oldWidth = blockWidth();
+    glyphs = new GlyphVector[newLines.length];
+    lines = newLines;
+    simpleText = text;
+    if (oldLines.length == newLines.length)
+    {
+      for (i = 0; i < lines.length; i ++) // keep glyphs for unchanged lines
+        if (lines[i].equals(oldLines[i]))
+          glyphs[i] = oldGlyphs[i];
+      makeGlyphs();
+    }
+    if ((oldLines.length != newLines.length) || (blockWidth() != oldWidth))
+    {
+      repaint();                  // block has moved or changed size
+      return;
+    }
+
+    /* Repaint only the changed characters on each line.  If a line changes
+    width, everything after the first change may have moved.  Glyph positions
+    are exact, unless a script combines characters into fewer glyphs. */
+
+    height = lineHeight();
+    pad = (height / 4) + 2;
+    for (i = 0; i < lines.length; i ++)
+    {
+      if (glyphs[i] == oldGlyphs[i]) // unchanged line
+        continue;
+      if ((glyphs[i].getNumGlyphs() != lines[i].length())
+        || (oldGlyphs[i].getNumGlyphs() != oldLines[i].length()))
+      {
+        left = 0;                 // complex script: whole line
+        right = Math.max(lineWidth(glyphs[i]), lineWidth(oldGlyphs[i]));
+      }
+      else
+      {
+        before = 0;
+        while ((before < lines[i].length()) && (before < oldLines[i]
+          .length()) && (lines[i].charAt(before) == oldLines[i]
+          .charAt(before)))
+        {
+          before ++;
+        }
+        after = 0;
+        if (lineWidth(glyphs[i]) == lineWidth(oldGlyphs[i]))
+        {
+          while (((after + before) < lines[i].length()) && ((after + before)
+            < oldLines[i].length()) && (lines[i].charAt(lines[i].length()
+            - after - 1) == oldLines[i].charAt(oldLines[i].length() - after
+            - 1)))
+          {
+            after ++;
+          }
+        }
+        left = (int) glyphs[i].getGlyphPosition(before).getX();
+        right = Math.max((int) Math.ceil(glyphs[i].getGlyphPosition(lines[i]
+          .length() - after).getX()), (int) Math.ceil(oldGlyphs[i]
+          .getGlyphPosition(oldLines[i].length() - after).getX()));
+      }
+      repaint((oldLeft + left - pad), (blockTop() + (i * height)),
+        (right - left + pad + pad), height);
+    }
+  } // end of setText() method
+
+} // end of ShowDateTime1Label class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Link class
+
+  This class is one connection to the time server.  A line client may send a
+  date format pattern, ending with a newline, at any time; until then, it gets
+  the server's -d format.  An HTTP client sends a GET request with the pattern
+  in the "d" query parameter, or none for the -d format.  Each connection
+  writes the newest text for its feed.  If a connection is still writing older
+  text, it finishes that, and then jumps to the newest text, so slow clients
+  skip ticks instead of collecting a backlog.
+*/
+
+class ShowDateTime1Link
+{
+  /* instance variables */
+
+  SocketChannel channel;          // non-blocking connection to client
+  boolean closing;                // true if closing after <notice>
+  ShowDateTime1Feed feed;         // date format being sent, or null
+  boolean http;                   // true for HTTP server-sent events
+  SelectionKey key;               // our registration with the selector
+  ByteBuffer notice;              // one-time bytes to send first, or null
+  int offset;                     // bytes of <sending> already written
+  ByteBuffer request;             // partial line or HTTP request from client
+  ByteBuffer sending;             // shared text being written, or null
+
+/*
+  constructor
+*/
+  public ShowDateTime1Link(SocketChannel channel, boolean http)
+  {
+    this.channel = channel;
+    this.closing = false;
+    this.feed = null;
+    this.http = http;
+    this.notice = null;
+    this.request = ByteBuffer.allocate(ShowDateTime1Server.MAX_REQUEST);
+    this.sending = null;
+  }
+
+/*
+  newest() method
+
+  Return the newest text that should be written for our feed.
+*/
+  ByteBuffer newest()
+  {
+    return(http ? feed.event : feed.line);
+  }
+
+/*
+  send() method
+
+  Called when our feed has new text.  Start writing it, unless we are still
+  writing older text.
+*/
+  void send() throws IOException
+  {
+    if ((sending != null) && (offset < sending.capacity()))
+      return;                     // newest text is written after older text
+    sending = null;               // so write() starts with newest text
+    write();
+  }
+
+/*
+  write() method
+
+  Write as much as the connection will take without blocking: any notice,
+  then our text, then any newer text.  Ask the selector to call us again if
+  not everything was written.  Shared buffers are used by one thread only, so
+  their position can be set for each connection.
+*/
+  void write() throws IOException
+  {
+    if (notice != null)
+    {
+      channel.write(notice);
+      if (notice.hasRemaining())  // connection is full
+      {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+      notice = null;
+      if (closing)
+      {
+        ShowDateTime1Server.close(this);
+        return;
+      }
+    }
+    while (feed != null)
+    {
+      if ((sending == null) || (offset >= sending.capacity()))
+      {
+        if (sending == newest())  // nothing new to write
+          break;
+        sending = newest();
+        offset = 0;
+      }
+      sending.limit(sending.capacity());
+      sending.position(offset);
+      channel.write(sending);
+      offset = sending.position();
+      if (offset < sending.capacity()) // connection is full
+      {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+    }
+    key.interestOps(SelectionKey.OP_READ); // wait for client or next tick
+  }
+
+} // end of ShowDateTime1Link class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Metrics class
+
+  This class collects statistics about clock ticks, when the -m option is
+  given: how late the timer fires after a time boundary, how long formatting
+  and setText() take, how long until the new text is painted, ticks where no
+  text changed, changes that were replaced before they could be painted, and
+  whole units (seconds, minutes) that were never shown.  Times go into
+  histograms with one bucket for each power of two microseconds, which is
+  cheap enough for every tick, and percentiles are the top of a bucket.  A
+  kiosk whose event dispatch thread is busy will show large lateness and
+  repaint times.  Counters also show how often windows were hidden (iconified),
+  for how long, and about how much work was avoided by not updating them.
+  With the -r option, lateness is for each frame, the repaint time is for
+  drawing all clocks, and frames that were drawn or dropped are counted.
+  With the -k option, the image cache's hits, misses, and size are shown.
+
+  Results are available as a JMX MBean named "ShowDateTime1:type=Metrics" (for
+  jconsole, etc), and can be written to standard error every few seconds.
+  Statistics are updated by the event dispatch thread and the -r drawing
+  thread, and read by JMX and the report thread, so all of them are guarded
+  by this object's lock: record() and the readers are synchronized, and
+  callers that change a counter directly hold the lock.  That's one lock with
+  almost no contention per tick or frame.  The image cache's counters are
+  only changed while painting, on the event dispatch thread, and are read
+  without the lock, so they may be a paint behind.
+*/
+
+class ShowDateTime1Metrics implements javax.management.DynamicMBean, Runnable
+{
+  /* constants */
+
+  static final int BUCKETS = 40;  // powers of two microseconds, up to days
+  static final String[] COUNTERS = { "Ticks", "WastedTicks",
+    "CoalescedUpdates", "MissedUpdates", "Suspensions", "SuspendedMillis",
+    "SkippedUpdates", "AvoidedMicros", "Frames", "DroppedFrames",
+    "CacheHits", "CacheMisses", "CacheEvictions", "CacheInvalidations",
+    "CacheBytes" };
+                                  // names for counter attributes
+  static final int FORMAT = 1;    // histogram numbers, see HISTOGRAMS
+  static final String[] HISTOGRAMS = { "Lateness", "Format", "SetText",
+    "Repaint" };                  // names for histogram attributes
+  static final int LATENESS = 0;
+  static final String MBEAN_NAME = "ShowDateTime1:type=Metrics";
+  static final int REPAINT = 3;
+  static final int SET_TEXT = 2;
+  static final String[] STATISTICS = { "Count", "MeanMicros", "P50Micros",
+    "P90Micros", "P99Micros", "MaxMicros" }; // for each histogram
+
+  /* class variables */
+
+  static ShowDateTime1Metrics active; // collecting statistics, or null if not
+
+  /* instance variables */
+
+  long coalescedUpdates;          // text replaced before it was painted
+  long[][] counts;                // histogram buckets, by histogram number
+  long droppedFrames;             // frames missed by -r drawing thread
+  int dumpSeconds;                // seconds between reports, or zero
+  long skippedUpdates;            // updates not done while windows hidden
+  long frames;                    // frames drawn by -r drawing thread
+  long[] maximums;                // largest value in each histogram
+  long missedUpdates;             // whole units that were never shown
+  long[] sums;                    // total of values in each histogram
+  long suspendedMillis;           // total time that windows were hidden
+  long suspensions;               // number of times windows were hidden
+  long ticks;                     // all ticks
+  long wastedTicks;               // ticks where no text changed
+
+/*
+  constructor
+*/
+  public ShowDateTime1Metrics(int dumpSeconds)
+  {
+    this.dumpSeconds = dumpSeconds;
+    reset();
+  }
+
+/*
+  start() method
+
+  Start collecting statistics, register our MBean, and start writing reports
+  if requested.  Problems with JMX are reported, but are not fatal.
+*/
+  static void start(int dumpSeconds)
+  {
+    active = new ShowDateTime1Metrics(dumpSeconds);
+    try
+    {
+      java.lang.management.ManagementFactory.getPlatformMBeanServer()
+        .registerMBean(active, new javax.management.ObjectName(MBEAN_NAME));
+    }
+    catch (Exception e)           // many possible JMX exceptions
+    {
+      System.err.println("Can't register metrics MBean: " + e);
+    }
+    if (dumpSeconds > 0)
+    {
+      Thread thread = new Thread(active, "ShowDateTime1Metrics");
+      thread.setDaemon(true);     // don't keep the program running
+      thread.start();
+    }
+  }
+
+/*
+  counter() method
+
+  Return the value of a counter by its index in COUNTERS.  The time avoided
+  while windows were hidden is an estimate, from the average time for
+  formatting and setText() on ticks that we did do.
+*/
+  synchronized long counter(int index)
+  {
+    switch (index)
+    {
+      case 0: return(ticks);
+      case 1: return(wastedTicks);
+      case 2: return(coalescedUpdates);
+      case 3: return(missedUpdates);
+      case 4: return(suspensions);
+      case 5: return(suspendedMillis);
+      case 6: return(skippedUpdates);
+      case 7: return(skippedUpdates * (sums[FORMAT] + sums[SET_TEXT])
+        / Math.max(1, ticks));
+      case 8: return(frames);
+      case 9: return(droppedFrames);
+    }
+    if (ShowDateTime1Cache.active == null) // no -k option
+      return(0);
+    switch (index)
+    {
+      case 10: return(ShowDateTime1Cache.active.hits);
+      case 11: return(ShowDateTime1Cache.active.misses);
+      case 12: return(ShowDateTime1Cache.active.evictions);
+      case 13: return(ShowDateTime1Cache.active.invalidations);
+      default: return(ShowDateTime1Cache.active.bytes);
+    }
+  }
+
+/*
+  getAttribute() method
+
+  DynamicMBean: return one attribute by name.
+*/
+  public Object getAttribute(String name)
+    throws javax.management.AttributeNotFoundException
+  {
+    int i, k;                     // index variables
+
+    if (name.equals("Report"))
+      return(report());
+    for (i = 0; i < COUNTERS.length; i ++)
+      if (name.equals(COUNTERS[i]))
+        return(Long.valueOf(counter(i)));
+    for (i = 0; i < HISTOGRAMS.length; i ++)
+      for (k = 0; k < STATISTICS.length; k ++)
+        if (name.equals(HISTOGRAMS[i] + STATISTICS[k]))
+          return(Long.valueOf(statistic(i, k)));
+    throw new javax.management.AttributeNotFoundException(name);
+  }
+
+/*
+  getAttributes() method
+
+  DynamicMBean: return a list of attributes by name, skipping unknown names.
+*/
+  public javax.management.AttributeList getAttributes(String[] names)
+  {
+    int i;                        // index variable
+    javax.management.AttributeList result; // attributes that we found
+
+    result = new javax.management.AttributeList();
+    for (i = 0; i < names.length; i ++)
+    {
+      try { result.add(new javax.management.Attribute(names[i],
+        getAttribute(names[i]))); }
+      catch (javax.management.AttributeNotFoundException anfe) { /* skip */ }
+    }
+    return(result);
+  }
+
+/*
+  getMBeanInfo() method
+
+  DynamicMBean: describe our attributes (all read-only) and our one
+  operation, which resets the statistics.
+*/
+  public javax.management.MBeanInfo getMBeanInfo()
+  {
+    Vector<javax.management.MBeanAttributeInfo> attributes;
+                                  // descriptions of attributes
+    int i, k;                     // index variables
+
+    attributes = new Vector<javax.management.MBeanAttributeInfo>();
+    for (i = 0; i < COUNTERS.length; i ++)
+      attributes.add(new javax.management.MBeanAttributeInfo(COUNTERS[i],
+        "long", COUNTERS[i], true, false, false));
+    for (i = 0; i < HISTOGRAMS.length; i ++)
+      for (k = 0; k < STATISTICS.length; k ++)
+        attributes.add(new javax.management.MBeanAttributeInfo(HISTOGRAMS[i]
+          + STATISTICS[k], "long", (HISTOGRAMS[i] + " " + STATISTICS[k]),
+          true, false, false));
+    attributes.add(new javax.management.MBeanAttributeInfo("Report",
+      "java.lang.String", "Text report of all statistics", true, false,
+      false));
+    return(new javax.management.MBeanInfo(getClass().getName(),
+      "ShowDateTime1 clock tick statistics", attributes.toArray(new
+      javax.management.MBeanAttributeInfo[attributes.size()]), null,
+      new javax.management.MBeanOperationInfo[] { new javax.management
+      .MBeanOperationInfo("reset", "Reset all statistics", null, "void",
+      javax.management.MBeanOperationInfo.ACTION) }, null));
+  }
+
+/*
+  invoke() method
+
+  DynamicMBean: our only operation is "reset".
+*/
+  public Object invoke(String name, Object[] params, String[] signature)
+    throws javax.management.ReflectionException
+  {
+    if (name.equals("reset"))
+    {
+      reset();
+      return(null);
+    }
+    throw new javax.management.ReflectionException(new NoSuchMethodException(
+      name));
+  }
+
+/*
+  record() method
+
+  Add one time in nanoseconds to a histogram.  Negative times are zero.
+*/
+  synchronized void record(int histogram, long nanos)
+  {
+    int bucket;                   // which bucket gets this value
+    long micros;                  // value in microseconds
+
+    micros = Math.max(0, (nanos / 1000));
+    bucket = Math.min((BUCKETS - 1), (64 - Long.numberOfLeadingZeros(
+      micros)));                  // zero goes in bucket zero
+    counts[histogram][bucket] ++;
+    maximums[histogram] = Math.max(maximums[histogram], micros);
+    sums[histogram] += micros;
+  }
+
+/*
+  report() method
+
+  Return a text report of all statistics.
+*/
+  synchronized String report()
+  {
+    StringBuffer buffer;          // report being created
+    int i, k;                     // index variables
+
+    buffer = new StringBuffer();
+    for (i = 0; i < COUNTERS.length; i ++)
+      buffer.append((i == 0) ? "" : ", ").append(COUNTERS[i]).append(" ")
+        .append(counter(i));
+    for (i = 0; i < HISTOGRAMS.length; i ++)
+    {
+      buffer.append(System.getProperty("line.separator"));
+      buffer.append(HISTOGRAMS[i]).append(":");
+      for (k = 0; k < STATISTICS.length; k ++)
+        buffer.append(" ").append(STATISTICS[k]).append(" ").append(
+          statistic(i, k));
+    }
+    return(buffer.toString());
+  }
+
+/*
+  reset() method
+
+  Clear all statistics.
+*/
+  synchronized void reset()
+  {
+    coalescedUpdates = missedUpdates = ticks = wastedTicks = 0;
+    skippedUpdates = suspendedMillis = suspensions = 0;
+    droppedFrames = frames = 0;
+    counts = new long[HISTOGRAMS.length][BUCKETS];
+    maximums = new long[HISTOGRAMS.length];
+    sums = new long[HISTOGRAMS.length];
+  }
+
+/*
+  run() method
+
+  Thread that writes a report on standard error every few seconds.
+*/
+  public void run()
+  {
+    while (true)
+    {
+      try { Thread.sleep(dumpSeconds * 1000L); }
+      catch (InterruptedException ie) { /* ignore */ }
+      System.err.println("ShowDateTime1 metrics at " + new Date() + ":");
+      System.err.println(report());
+    }
+  }
+
+/*
+  setAttribute() and setAttributes() methods
+
+  DynamicMBean: all of our attributes are read-only.
+*/
+  public void setAttribute(javax.management.Attribute attribute)
+    throws javax.management.AttributeNotFoundException
+  {
+    throw new javax.management.AttributeNotFoundException(attribute
+      .getName() + " is read-only");
+  }
+
+  public javax.management.AttributeList setAttributes(
+    javax.management.AttributeList attributes)
+  {
+    return(new javax.management.AttributeList()); // nothing was set
+  }
+
+/*
+  statistic() method
+
+  Return one statistic for one histogram, by their index numbers.
+*/
+  synchronized long statistic(int histogram, int statistic)
+  {
+    int i;                        // index variable
+    long seen;                    // values counted so far
+    long total;                   // number of values in histogram
+
+    total = 0;
+    for (i = 0; i < BUCKETS; i ++)
+      total += counts[histogram][i];
+    switch (statistic)
+    {
+      case 0: return(total);      // Count
+      case 1: return((total == 0) ? 0 : (sums[histogram] / total)); // Mean
+      case 5: return(maximums[histogram]); // Max
+    }
+    total = (total * ((statistic == 2) ? 50 : ((statistic == 3) ? 90 : 99))
+      + 99) / 100;                // rank for percentile, rounded up
+    seen = 0;
+    for (i = 0; i < BUCKETS; i ++)
+    {
+      seen += counts[histogram][i];
+      if ((seen >= total) && (seen > 0)) // top of this bucket
+        return(Math.min(maximums[histogram], ((1L << i) - 1)));
+    }
+    return(0);
+  }
+
+} // end of ShowDateTime1Metrics class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Options class
+
+  This class holds the command-line options for one window.  Colors are kept
+  as RGB integers, so that this class and the main class don't need any GUI
+  classes.
+*/
+
+class ShowDateTime1Options implements Cloneable
+{
+  /* constants */
+
+  static final int ALL_SCREENS = -2; // one window on every screen
+  static final int DEFAULT_SCREEN = -1; // window on default screen
+
+  /* instance variables */
+
+  boolean borderFlag;             // true if main window has borders, controls
+  String clockFile;               // file name for list of clocks, or null
+  int clockSpeed;                 // virtual clock speed, 0 = steps, -1 = none
+  long clockStart;                // virtual clock start, or 0 for now
+  String configFile;              // file name for more options, or null
+  int eventPort;                  // port for HTTP server-sent events, or 0
+  String exportFile;              // file for frames as pixels, or null
+  String fontName;                // font name for text in output text area
+  int fontSize;                   // point size for text in output text area
+  SimpleDateFormat formatDate;    // formats date/time as numeric text
+  int imageCache;                 // megabytes for rendered images, or 0
+  String inputFile;               // epoch times to format, empty for stdin
+  int linePort;                   // port for lines of text over TCP, or 0
+  boolean maximizeFlag;           // true if we maximize our main window
+  int metricSeconds;              // seconds between metrics, 0 = none, or -1
+  String outputFile;              // text output, empty for stdout, else null
+  int panelColor, textColor;      // background and foreground colors in RGB
+  int refreshRate;                // frames per second, 0 = screen, -1 = none
+  int scheduleCount;              // number of events shown from schedule
+  String scheduleFile;            // file with events for countdowns, or null
+  int screen;                     // screen number from 1, or special value
+  String serverAddress;           // "host:port" of time server, or null
+  int startupReport;              // 1 = report startup, 2 = and exit, 0 = no
+  int windowHeight, windowLeft, windowTop, windowWidth;
+                                  // position and size for main window
+
+/*
+  constructor
+
+  Default values for all options.
+*/
+  public ShowDateTime1Options()
+  {
+    borderFlag = true;            // by default, window has borders, controls
+    clockFile = null;             // by default, only one clock
+    clockSpeed = -1;              // by default, use the system clock
+    clockStart = 0;
+    configFile = null;            // by default, command-line options only
+    eventPort = 0;                // by default, not a time server
+    exportFile = null;            // by default, show a window, not pixels
+    fontName = "Verdana";         // preferred font name for output text area
+    fontSize = 36;                // default point size for output text area
+    formatDate = new SimpleDateFormat(
+      "'<html>'EEE d MMM yyyy'<br>'h:mm:ss a z'</html>'"); // date/time format
+    imageCache = 0;               // by default, don't cache rendered images
+    inputFile = null;             // by default, show the current time
+    linePort = 0;                 // by default, not a time server
+    maximizeFlag = false;         // by default, don't maximize our main window
+    metricSeconds = -1;           // by default, no statistics
+    outputFile = null;            // by default, show a window, not text
+    panelColor = 0xE0E0FF;        // default background color (224,224,255)
+    refreshRate = -1;             // by default, repaint only on clock ticks
+    scheduleCount = 5;            // by default, show next five events
+    scheduleFile = null;          // by default, show the date and time
+    screen = DEFAULT_SCREEN;      // whatever the system calls the main screen
+    serverAddress = null;         // by default, format our own date and time
+    startupReport = 0;            // by default, no startup report
+    textColor = 0x333333;         // default text color (51,51,51)
+    windowHeight = 150;           // default window position and size
+    windowLeft = 100;
+    windowTop = 100;
+    windowWidth = 400;
+  }
+
+/*
+  copy() method
+
+  Return a copy of these options, for the next window.  The date formatter is
+  shared, since nobody changes it.  (Options read again from a file get a new
+  formatter instead.)
+*/
+  public ShowDateTime1Options copy()
+  {
+    try { return((ShowDateTime1Options) clone()); }
+    catch (CloneNotSupportedException cnse) { return(null); } // can't happen
+  }
+
+} // end of ShowDateTime1Options class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Remote class
+
+  This class is a thin client for the -u option: a window shows text from a
+  time server (see the -l option) instead of formatting the date and time
+  itself.  A thread reads lines from the server, and the newest line is given
+  to the clock's label on the event dispatch thread.  The client sends its -d
+  format to the server, so clients with the same format share one feed.  If
+  the connection fails, we try again every few seconds.
+*/
+
+class ShowDateTime1Remote implements Runnable
+{
+  /* constants */
+
+  static final int RETRY_DELAY = 5000; // milliseconds between connections
+
+  /* instance variables */
+
+  String host;                    // server's host name or address
+  ShowDateTime1Label label;       // where we show text from the server
+  volatile String pattern;        // date format pattern sent to server
+  String pending;                 // newest text not yet shown, or null
+  int port;                       // server's port number
+  volatile Socket socket;         // connection to server, or null
+
+/*
+  constructor
+
+  The address is "host:port".  The caller has checked the syntax.
+*/
+  public ShowDateTime1Remote(String address, String pattern,
+    ShowDateTime1Label label)
+  {
+    this.host = address.substring(0, address.lastIndexOf(':'));
+    this.label = label;
+    this.pattern = pattern;
+    this.pending = null;
+    this.port = Integer.parseInt(address.substring(address.lastIndexOf(':')
+      + 1));
+  }
+
+/*
+  run() method
+
+  On our own thread, read lines from the server.  On the event dispatch
+  thread, show the newest line.  Lines that arrive faster than they can be
+  shown are skipped.
+*/
+  public void run()
+  {
+    String line;                  // one line from server
+    BufferedReader reader;        // text from server
+    String sent;                  // date format pattern that we sent
+
+    if (SwingUtilities.isEventDispatchThread()) // show newest text
+    {
+      synchronized (this) { line = pending; pending = null; }
+      if (line != null)
+        label.setText(line);
+      return;
+    }
+
+    while (true)                  // read text from server
+    {
+      sent = pattern;
+      try
+      {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        Writer writer = new OutputStreamWriter(socket.getOutputStream(),
+          "UTF-8");
+        writer.write(sent + "\n");
+        writer.flush();
+        reader = new BufferedReader(new InputStreamReader(socket
+          .getInputStream(), "UTF-8"));
+        while ((line = reader.readLine()) != null)
+          show(line);
+        socket.close();
+        if (sent.equals(pattern) == false) // we closed it for a new format
+          continue;
+        show("Time server closed connection");
+      }
+      catch (IOException ioe)
+      {
+        if (sent.equals(pattern) == false) // we closed it for a new format
+          continue;
+        show("No time server: " + ioe.getMessage());
+      }
+      try { Thread.sleep(RETRY_DELAY); }
+      catch (InterruptedException ie) { /* ignore */ }
+    }
+  }
+
+/*
+  setPattern() method
+
+  Change the date format, from an options file.  Closing the connection makes
+  our thread connect again at once, and send the new pattern.
+*/
+  void setPattern(String newPattern)
+  {
+    Socket current = socket;      // connection in use, if any
+    pattern = newPattern;
+    if (current != null)
+    {
+      try { current.close(); }
+      catch (IOException ioe) { /* ignore */ }
+    }
+  }
+
+/*
+  show() method
+
+  Give new text to the event dispatch thread, unless it hasn't yet shown the
+  previous text, in which case the newer text replaces it.
+*/
+  synchronized void show(String text)
+  {
+    if (pending == null)          // nothing waiting, so ask for a call
+      SwingUtilities.invokeLater(this);
+    pending = text;
+  }
+
+} // end of ShowDateTime1Remote class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Schedule class
+
+  This class shows countdowns to the next few events in a schedule file, for
+  the -q option, instead of the date and time: departures, shift changes,
+  broadcasts.  It takes the place of ShowDateTime1Text, so windows, canvases,
+  and the -o and -v options use it without knowing the difference.
+
+  Each line in the file has a date and time, and a label, separated by a
+  vertical bar (|).  The time is "yyyy-MM-dd HH:mm" or "yyyy-MM-dd HH:mm:ss" in
+  the local time zone, or milliseconds since 1970.  Blank lines and lines
+  starting with a number sign (#) are ignored, as are events in the past.
+  For example:
+
+      2026-10-17 18:45 | Express to Boston
+      2026-10-17 19:00:30 | Night shift
+
+  Future events are kept in a sorted tree (TreeMap) by time, which is a
+  priority queue that can also list the first few entries in order: adding an
+  event or removing the earliest takes log(n) time, and finding the next N
+  events looks at only N entries.  Tens of thousands of events are no
+  problem.  The text is made again only when an event expires or when a
+  countdown changes: every day, hour, minute, or second, depending on how far
+  away the event is.  Nothing else happens on a clock tick.
+
+  The file is read once, and then checked about once per minute.  Lines added
+  to the end of the file are read from where we stopped, without reading the
+  rest of the file again.  The whole file is read again only if it becomes
+  shorter or is changed without growing.
+*/
+
+class ShowDateTime1Schedule extends ShowDateTime1Text
+{
+  /* constants */
+
+  static final int CHECK_DELAY = ShowDateTime1Ticker.TICK_LIMIT;
+                                  // milliseconds between checks of file
+  static final long DAY = 86400000L; // milliseconds in one day, etc
+  static final long HOUR = 3600000L;
+  static final long MINUTE = 60000L;
+  static final long SECOND = 1000L;
+
+  /* instance variables */
+
+  long checkAt;                   // when to check file for new events
+  int count;                      // number of events to show
+  TreeMap<Long, Vector<String>> events; // labels by time, sorted
+  String fileName;                // schedule file
+  int lineNumber;                 // lines read from file, for errors
+  long modified;                  // file's modification time when read
+  char[] next;                    // new text, compared with <buffer>
+  int nextLength;                 // number of characters in <next>
+  long offset;                    // bytes of whole lines read from file
+
+/*
+  constructor
+
+  The -d format gives only the locale and time zone.
+*/
+  public ShowDateTime1Schedule(ShowDateTime1Options options)
+  {
+    super((SimpleDateFormat) options.formatDate.clone());
+    this.buffer = new char[256];  // will grow as necessary
+    this.checkAt = Long.MIN_VALUE; // read file on first update
+    this.count = options.scheduleCount;
+    this.events = new TreeMap<Long, Vector<String>>();
+    this.fileName = options.scheduleFile;
+    this.length = 0;
+    this.lineNumber = 0;
+    this.modified = 0;
+    this.next = new char[256];
+    this.nextLength = 0;
+    this.offset = 0;
+    this.skipped = false;         // events are never skipped
+  }
+
+/*
+  addEvent() method
+
+  Parse one line from the schedule file, and add the event if it is in the
+  future.  Bad lines are reported and ignored, since other programs may be
+  writing the file while we run.  Return true if an event was added.
+*/
+  boolean addEvent(String line, long now)
+  {
+    int bar;                      // index of vertical bar in line
+    String label;                 // label with HTML special characters
+    long time;                    // time of event in milliseconds
+
+    line = line.trim();
+    if ((line.length() == 0) || line.startsWith("#"))
+      return(false);              // ignore blank lines and comments
+    bar = line.indexOf('|');
+    time = parseTime(((bar < 0) ? line : line.substring(0, bar).trim()),
+      calendar);
+    if (time == Long.MIN_VALUE)
+    {
+      System.err.println("Invalid time on line " + lineNumber + " of "
+        + fileName + ": " + line);
+      return(false);
+    }
+    if (time <= now)              // already happened
+      return(false);
+    label = (bar < 0) ? "" : line.substring(bar + 1).trim().replace("&",
+      "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    Vector<String> labels = events.get(Long.valueOf(time));
+    if (labels == null)           // first event at this time
+    {
+      labels = new Vector<String>(1);
+      events.put(Long.valueOf(time), labels);
+    }
+    labels.add(label);
+    return(true);
+  }
+
+/*
+  isCompiled() method
+
+  Our text is always in <buffer>, so nobody needs to ask for a String.
+*/
+  public boolean isCompiled()
+  {
+    return(true);
+  }
+
+/*
+  nextDelay() method
+
+  Return the number of milliseconds to wait until our text changes, or until
+  the file should be checked.
+*/
+  public int nextDelay(long now)
+  {
+    long delay;                   // milliseconds until something happens
+
+    delay = Math.min(validUntil, checkAt) - now;
+    if (now < validFrom)          // clock went backwards
+      delay = 0;
+    return((int) Math.max(0, Math.min(ShowDateTime1Ticker.TICK_LIMIT, delay))
+      + ShowDateTime1Ticker.TICK_MARGIN);
+  }
+
+/*
+  parseTime() method
+
+  Return the time in milliseconds for "yyyy-MM-dd HH:mm", "yyyy-MM-dd
+  HH:mm:ss", or a number of milliseconds, or Long.MIN_VALUE if the text is
+  none of those or the date doesn't exist (February 31st).  This is done by
+  hand with the given calendar (for the time zone), since it may be called
+  many thousands of times when a large file is read.  Also used for the -z
+  option.
+*/
+  static long parseTime(String text, Calendar calendar)
+  {
+    int i;                        // index variable
+    int[] values;                 // year, month, day, hour, minute, second
+
+    if ((text.length() > 0) && (text.length() <= 18))
+    {
+      for (i = 0; i < text.length(); i ++)
+        if ((text.charAt(i) < '0') || (text.charAt(i) > '9'))
+          break;
+      if (i == text.length())     // only digits: milliseconds
+        return(Long.parseLong(text));
+    }
+    if (((text.length() != 16) && (text.length() != 19))
+      || (text.charAt(4) != '-') || (text.charAt(7) != '-')
+      || ((text.charAt(10) != ' ') && (text.charAt(10) != 'T'))
+      || (text.charAt(13) != ':') || ((text.length() == 19)
+      && (text.charAt(16) != ':')))
+    {
+      return(Long.MIN_VALUE);
+    }
+    values = new int[6];
+    for (i = 0; i < values.length; i ++)
+    {
+      int start = (i == 0) ? 0 : (2 + (i * 3)); // 0, 5, 8, 11, 14, 17
+      int end = start + ((i == 0) ? 4 : 2);
+      if (end > text.length())    // no seconds
+        break;
+      for (int k = start; k < end; k ++)
+      {
+        char ch = text.charAt(k);
+        if ((ch < '0') || (ch > '9'))
+          return(Long.MIN_VALUE);
+        values[i] = (values[i] * 10) + (ch - '0');
+      }
+    }
+    if ((values[1] < 1) || (values[1] > 12) || (values[2] < 1) || (values[2]
+      > 31) || (values[3] > 23) || (values[4] > 59) || (values[5] > 59))
+    {
+      return(Long.MIN_VALUE);
+    }
+    calendar.clear();             // day must exist in this month and year
+    calendar.set(values[0], (values[1] - 1), 1);
+    if (values[2] > calendar.getActualMaximum(Calendar.DAY_OF_MONTH))
+      return(Long.MIN_VALUE);
+    calendar.set(values[0], (values[1] - 1), values[2], values[3], values[4],
+      values[5]);
+    return(calendar.getTimeInMillis());
+  }
+
+/*
+  putCountdown() method
+
+  Add the time remaining until an event, in the largest units that make
+  sense: "2d 05h", "3h 04m", or "4:05".  Partial units are dropped, so the
+  countdown shows "0:00" during the last second.  Return the number of
+  milliseconds until this countdown changes.
+*/
+  long putCountdown(long remaining)
+  {
+    if (remaining >= DAY)
+    {
+      putNumber((remaining / DAY), 1);
+      putString("d ");
+      putNumber(((remaining % DAY) / HOUR), 2);
+      putChar('h');
+      return((remaining % HOUR) + 1);
+    }
+    else if (remaining >= HOUR)
+    {
+      putNumber((remaining / HOUR), 1);
+      putString("h ");
+      putNumber(((remaining % HOUR) / MINUTE), 2);
+      putChar('m');
+      return((remaining % MINUTE) + 1);
+    }
+    putNumber((remaining / MINUTE), 1);
+    putChar(':');
+    putNumber(((remaining % MINUTE) / SECOND), 2);
+    return((remaining % SECOND) + 1);
+  }
+
+/*
+  putChar(), putNumber(), and putString() methods
+
+  Add characters to the new text in <next>, growing it as necessary.
+*/
+  void putChar(char ch)
+  {
+    if (nextLength == next.length)
+    {
+      char[] bigger = new char[next.length * 2];
+      System.arraycopy(next, 0, bigger, 0, nextLength);
+      next = bigger;
+    }
+    next[nextLength ++] = ch;
+  }
+
+  void putNumber(long value, int digits)
+  {
+    int i;                        // index variable
+    int start;                    // where the number starts in <next>
+
+    start = nextLength;
+    do
+    {
+      putChar((char) ('0' + (value % 10)));
+      value /= 10;
+    } while ((value > 0) || ((nextLength - start) < digits));
+    for (i = 0; i < ((nextLength - start) / 2); i ++) // digits were backwards
+    {
+      char ch = next[start + i];
+      next[start + i] = next[nextLength - 1 - i];
+      next[nextLength - 1 - i] = ch;
+    }
+  }
+
+  void putString(String text)
+  {
+    int i;                        // index variable
+    for (i = 0; i < text.length(); i ++)
+      putChar(text.charAt(i));
+  }
+
+/*
+  readEvents() method
+
+  Read new lines from the schedule file: everything the first time, and
+  after that only lines added to the end.  Return true if the events have
+  changed.  A file that can't be read is reported, and we keep the events
+  we have.
+*/
+  boolean readEvents(long now)
+  {
+    byte[] bytes;                 // new part of file
+    boolean changed;              // true if events have changed
+    File file;                    // schedule file
+    int i;                        // index variable
+    RandomAccessFile input;       // for reading from <offset>
+    long size;                    // size of file in bytes
+    int start;                    // start of current line in <bytes>
+    long time;                    // file's modification time
+
+    file = new File(fileName);
+    if (file.isFile() == false)   // may be replaced in a moment
+    {
+      if (modified == 0)          // never read, so say so once
+      {
+        System.err.println("Schedule file not found: " + fileName);
+        modified = -1;
+      }
+      return(false);
+    }
+    changed = false;
+    size = file.length();
+    time = file.lastModified();
+    if ((size < offset) || ((size == offset) && (time != modified)))
+    {
+      changed = (events.isEmpty() == false); // file was replaced or edited,
+      events.clear();             // ... so read everything again
+      lineNumber = 0;
+      offset = 0;
+    }
+    modified = time;
+    if (size == offset)           // nothing new
+      return(changed);
+    try
+    {
+      input = new RandomAccessFile(file, "r");
+      try
+      {
+        input.seek(offset);
+        bytes = new byte[(int) Math.min(Integer.MAX_VALUE, (size - offset))];
+        input.readFully(bytes);
+      }
+      finally { input.close(); }
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't read schedule from " + fileName + ": "
+        + ioe.getMessage());
+      return(changed);
+    }
+    start = 0;                    // only whole lines, the rest comes later
+    for (i = 0; i < bytes.length; i ++)
+    {
+      if (bytes[i] == '\n')
+      {
+        lineNumber ++;
+        try { changed |= addEvent(new String(bytes, start, (i - start),
+          "UTF-8"), now); }
+        catch (UnsupportedEncodingException uee) { /* can't happen */ }
+        start = i + 1;
+      }
+    }
+    offset += start;
+    return(changed);
+  }
+
+/*
+  update() method
+
+  Remove events that have expired, and make the text for the next events.
+  Return true if the text has changed.  Between changes, this returns at once.
+*/
+  public boolean update(long now)
+  {
+    long change;                  // when any countdown next changes
+    boolean changed;              // true if text has changed
+    int i;                        // index variable
+    Iterator<Map.Entry<Long, Vector<String>>> iterator;
+                                  // for the next events in time order
+    int shown;                    // number of events shown so far
+
+    if (now >= checkAt)           // look for new events in file
+    {
+      checkAt = now + CHECK_DELAY;
+      if (readEvents(now))
+        validUntil = Long.MIN_VALUE; // make new text
+    }
+    if ((now >= validFrom) && (now < validUntil)) // nothing has expired and
+      return(false);              // ... no countdown has changed
+
+    while ((events.isEmpty() == false) && (events.firstKey().longValue()
+      <= now))
+    {
+      events.remove(events.firstKey()); // event has happened
+    }
+
+    change = Long.MAX_VALUE;
+    nextLength = 0;
+    putString("<html>");
+    shown = 0;
+    iterator = events.entrySet().iterator();
+    while ((shown < count) && iterator.hasNext())
+    {
+      Map.Entry<Long, Vector<String>> entry = iterator.next();
+      long time = entry.getKey().longValue();
+      Vector<String> labels = entry.getValue();
+      for (i = 0; (shown < count) && (i < labels.size()); i ++)
+      {
+        if (shown > 0)
+          putString("<br>");
+        change = Math.min(change, (now + putCountdown(time - now)));
+        putChar(' ');
+        putString(labels.get(i));
+        shown ++;
+      }
+    }
+    if (shown == 0)
+      putString("No more events");
+    putString("</html>");
+
+    changed = (nextLength != length);
+    for (i = 0; (changed == false) && (i < length); i ++)
+      changed = (next[i] != buffer[i]);
+    if (changed)                  // swap buffers, keep the old one for later
+    {
+      char[] older = buffer;
+      buffer = next;
+      length = nextLength;
+      next = older;
+      text = null;                // create a new String only if requested
+    }
+    validFrom = now;
+    validUntil = change;
+    return(changed);
+  }
+
+} // end of ShowDateTime1Schedule class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Server class
+
+  This class is a time server, for the -l and -e options, so that many thin
+  displays on a network can show one clock instead of each running its own.
+  Each different date format is formatted once per tick, and the same bytes
+  are written to every connection that wants that format.  One thread does
+  everything: accepts connections, reads requests, formats text when the
+  clock ticks, and writes to clients with non-blocking sockets.  Thousands of
+  connections are possible, limited mostly by the system's open files.
+
+  Line clients (-l) get one line of text, ending with a newline, each time
+  the text changes.  HTTP clients (-e) get server-sent events, which a web
+  browser can read with JavaScript's EventSource.  Like the -o option, no GUI
+  classes are loaded.
+*/
+
+class ShowDateTime1Server
+{
+  /* constants */
+
+  static final int MAX_FEEDS = 1000; // most different date formats at once
+  static final int MAX_REQUEST = 2048; // longest request from a client
+
+  /* class variables */
+
+  static HashMap<String, ShowDateTime1Feed> feeds
+    = new HashMap<String, ShowDateTime1Feed>(); // formats in use, by pattern
+  static String mainPattern;      // server's -d pattern, for clients without
+  static long nextTick;           // time of next tick, in milliseconds
+
+/*
+  accept() method
+
+  Accept a new connection.  Line clients start with the server's format right
+  away.  HTTP clients wait for their request.
+*/
+  static void accept(SelectionKey serverKey) throws IOException
+  {
+    SocketChannel channel;        // new connection, if any
+    ShowDateTime1Link link;       // our state for this connection
+
+    channel = ((ServerSocketChannel) serverKey.channel()).accept();
+    if (channel == null)          // someone else got it
+      return;
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true); // short lines, send now
+    link = new ShowDateTime1Link(channel, (serverKey.attachment() != null));
+    link.key = channel.register(serverKey.selector(), SelectionKey.OP_READ,
+      link);
+    if (link.http == false)
+      subscribe(link, mainPattern);
+  }
+
+/*
+  close() method
+
+  Close a connection, and forget its date format if no one else uses it.
+*/
+  static void close(ShowDateTime1Link link)
+  {
+    link.key.cancel();
+    try { link.channel.close(); }
+    catch (IOException ioe) { /* ignore errors while closing */ }
+    unsubscribe(link);
+  }
+
+/*
+  listen() method
+
+  Open a server socket on the given port.  Event (HTTP) sockets have a non-null
+  attachment.
+*/
+  static void listen(Selector selector, int port, boolean http)
+    throws IOException
+  {
+    ServerSocketChannel server = ServerSocketChannel.open();
+    server.socket().setReuseAddress(true);
+    server.socket().bind(new InetSocketAddress(port), 1000); // large backlog
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT, (http ? "http" : null));
+  }
+
+/*
+  read() method
+
+  Read from a client.  Line clients send new date formats, one per line.  HTTP
+  clients send one request; anything after that is ignored.
+*/
+  static void read(ShowDateTime1Link link) throws IOException
+  {
+    int end;                      // end of line or request
+    int i;                        // index variable
+    byte[] bytes;                 // bytes in request buffer
+
+    if (link.channel.read(link.request) < 0) // client has closed
+    {
+      close(link);
+      return;
+    }
+    if (link.http && (link.feed != null)) // already have HTTP request
+    {
+      link.request.clear();       // ignore anything else
+      return;
+    }
+    bytes = link.request.array();
+    while (true)
+    {
+      end = -1;                   // look for end of line, or end of request
+      for (i = 0; (i < link.request.position()) && (end < 0); i ++)
+      {
+        if ((bytes[i] == '\n') && ((link.http == false) || ((i > 0)
+          && (bytes[i - 1] == '\n')) || ((i > 2) && (bytes[i - 1] == '\r')
+          && (bytes[i - 2] == '\n'))))
+        {
+          end = i + 1;
+        }
+      }
+      if (end < 0)                // don't have a complete line or request
+      {
+        if (link.request.hasRemaining() == false) // too long, give up
+          close(link);
+        return;
+      }
+      String text = new String(bytes, 0, end, "UTF-8");
+      link.request.flip();        // remove what we used from the buffer
+      link.request.position(end);
+      link.request.compact();
+      if (link.http)
+      {
+        request(link, text);
+        return;
+      }
+      text = text.trim();
+      if (text.length() > 0)      // empty lines are ignored
+        subscribe(link, text);
+    }
+  }
+
+/*
+  request() method
+
+  Answer an HTTP request for server-sent events.  A query that can't be
+  decoded gets an HTTP error, like a bad date format.
+*/
+  static void request(ShowDateTime1Link link, String text) throws IOException
+  {
+    String path;                  // path and query from request line
+    String pattern;               // date format pattern from query, or null
+    StringTokenizer tokens;       // words from request line
+    String word;                  // one query parameter
+
+    tokens = new StringTokenizer(text);
+    if ((tokens.countTokens() < 2) || (tokens.nextToken().equals("GET")
+      == false))
+    {
+      respond(link, "405 Method Not Allowed", true);
+      return;
+    }
+    path = tokens.nextToken();
+    pattern = mainPattern;
+    if (path.indexOf('?') >= 0)   // look for "d" parameter in query
+    {
+      tokens = new StringTokenizer(path.substring(path.indexOf('?') + 1),
+        "&");
+      while (tokens.hasMoreTokens())
+      {
+        word = tokens.nextToken();
+        if (word.startsWith("d="))
+        {
+          try { pattern = URLDecoder.decode(word.substring(2), "UTF-8"); }
+          catch (IllegalArgumentException iae) // bad "%" escape in query
+          {
+            respond(link, "400 Bad Request", true);
+            return;
+          }
+        }
+      }
+    }
+    respond(link, "200 OK", false);
+    subscribe(link, pattern);
+  }
+
+/*
+  respond() method
+
+  Start an HTTP response, with an error status or with the headers for
+  server-sent events.
+*/
+  static void respond(ShowDateTime1Link link, String status, boolean error)
+    throws IOException
+  {
+    link.closing = error;
+    link.notice = ByteBuffer.wrap(("HTTP/1.1 " + status + "\r\n"
+      + "Access-Control-Allow-Origin: *\r\n"
+      + "Cache-Control: no-cache\r\n"
+      + (error ? "Connection: close\r\nContent-Type: text/plain\r\n\r\n"
+      + status + "\n" : "Content-Type: text/event-stream\r\n\r\n"))
+      .getBytes("UTF-8"));
+    link.write();
+  }
+
+/*
+  serve() method
+
+  Run the time server.  Never returns.
+*/
+  static void serve(ShowDateTime1Options options)
+  {
+    int delay;                    // milliseconds until next tick
+    Iterator<ShowDateTime1Feed> feedList; // for each date format in use
+    Iterator<SelectionKey> keyList; // for each connection or server socket
+    long now;                     // current time in milliseconds
+    Selector selector;            // waits for all sockets at once
+
+    mainPattern = options.formatDate.toPattern();
+    try
+    {
+      selector = Selector.open();
+      if (options.linePort > 0)
+        listen(selector, options.linePort, false);
+      if (options.eventPort > 0)
+        listen(selector, options.eventPort, true);
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't start time server: " + ioe.getMessage());
+      System.exit(-1);
+      return;                     // keep compiler happy
+    }
+
+    nextTick = 0;
+    while (true)
+    {
+      now = ShowDateTime1Clock.millis();
+      if (now >= nextTick)        // clock tick: format each feed once
+      {
+        delay = ShowDateTime1Ticker.TICK_LIMIT;
+        feedList = feeds.values().iterator();
+        while (feedList.hasNext())
+        {
+          ShowDateTime1Feed feed = feedList.next();
+          feed.update(now);
+          delay = Math.min(delay, feed.text.nextDelay(now));
+        }
+        keyList = selector.keys().iterator();
+        while (keyList.hasNext()) // and write to clients whose feed changed
+        {
+          SelectionKey key = keyList.next();
+          ShowDateTime1Link link = (key.attachment() instanceof
+            ShowDateTime1Link) ? (ShowDateTime1Link) key.attachment() : null;
+          if ((link != null) && key.isValid() && (link.feed != null)
+            && link.feed.changed)
+          {
+            try { link.send(); }
+            catch (IOException ioe) { close(link); }
+            catch (RuntimeException re) { close(link); } // only this one
+          }
+        }
+        nextTick = now + Math.max(1, delay);
+      }
+
+      now = ShowDateTime1Clock.millis();
+      try { selector.select(Math.max(1, ShowDateTime1Clock.realDelay(now,
+        (int) Math.max(0, (nextTick - now))))); }
+      catch (IOException ioe) { /* try again on next tick */ }
+      keyList = selector.selectedKeys().iterator();
+      while (keyList.hasNext())
+      {
+        SelectionKey key = keyList.next();
+        keyList.remove();
+        try
+        {
+          if (key.isValid() && key.isAcceptable())
+            accept(key);
+          else if (key.isValid() && key.isReadable())
+            read((ShowDateTime1Link) key.attachment());
+          if (key.isValid() && key.isWritable())
+            ((ShowDateTime1Link) key.attachment()).write();
+        }
+        catch (IOException ioe) // connection has failed
+        {
+          if (key.attachment() instanceof ShowDateTime1Link)
+            close((ShowDateTime1Link) key.attachment());
+        }
+        catch (RuntimeException re) // bad request: close only this connection
+        {
+          if (key.attachment() instanceof ShowDateTime1Link)
+            close((ShowDateTime1Link) key.attachment());
+        }
+      }
+    }
+  }
+
+/*
+  subscribe() method
+
+  Start sending a date format to a connection.  A new format is checked and
+  formatted right away.  Bad formats are refused, with a message for line
+  clients and an HTTP error for event clients.
+*/
+  static void subscribe(ShowDateTime1Link link, String pattern)
+    throws IOException
+  {
+    ShowDateTime1Feed feed;       // feed for this pattern
+
+    feed = feeds.get(pattern);
+    if (feed == null)             // first client with this date format
+    {
+      String problem = null;      // error message, or null if none
+      if (feeds.size() >= MAX_FEEDS)
+        problem = "Too many different date formats";
+      else
+      {
+        try { new SimpleDateFormat(pattern); }
+        catch (IllegalArgumentException iae) { problem = iae.getMessage(); }
+      }
+      if (problem != null)
+      {
+        if (link.http)
+          respond(link, "400 Bad Request", true);
+        else                      // line clients keep their old format
+        {
+          link.notice = ByteBuffer.wrap(("Invalid date format: " + problem
+            + "\n").getBytes("UTF-8"));
+          link.write();
+        }
+        return;
+      }
+      feed = new ShowDateTime1Feed(pattern);
+      feeds.put(pattern, feed);
+      nextTick = 0;               // new format may need an earlier tick
+    }
+    unsubscribe(link);
+    feed.links ++;
+    link.feed = feed;
+    link.sending = null;          // send current text of new format
+    link.write();
+  }
+
+/*
+  unsubscribe() method
+
+  Stop sending a connection its date format, and forget formats that no one
+  uses.
+*/
+  static void unsubscribe(ShowDateTime1Link link)
+  {
+    if (link.feed != null)
+    {
+      link.feed.links --;
+      if (link.feed.links <= 0)
+        feeds.remove(link.feed.pattern);
+      link.feed = null;
+    }
+  }
+
+} // end of ShowDateTime1Server class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Stream class
+
+  This class writes the date and/or time as lines of text, to standard output
+  or to a file (which may be a named pipe), only when the text changes.  There
+  is no window, and no GUI classes are loaded, so this starts quickly and uses
+  little memory on headless servers.  The clock ticks on one thread, and a
+  second thread does the writing, so that a slow reader can't delay the clock.
+  Lines wait in a buffer and are written together.  If the reader is so slow
+  that the buffer fills, older lines are thrown away, since only the newest
+  date and time are interesting.
+*/
+
+class ShowDateTime1Stream implements Runnable
+{
+  /* constants */
+
+  static final int MAX_PENDING = 65536; // most characters waiting for reader
+
+  /* instance variables */
+
+  String fileName;                // output file name, or empty for stdout
+  String newline;                 // end-of-line marker for this system
+  StringBuffer pending;           // lines not yet written
+
+/*
+  constructor
+*/
+  public ShowDateTime1Stream(String fileName)
+  {
+    this.fileName = fileName;
+    this.newline = System.getProperty("line.separator");
+    this.pending = new StringBuffer();
+  }
+
+/*
+  plainText() method
+
+  Return our text as one line.  Simple HTML (as in the default date format) has
+  its tags removed, and lines are joined with spaces.  Anything else is used
+  exactly as given.
+*/
+  static String plainText(String text)
+  {
+    int i;                        // index variable
+    String[] lines;               // lines from simple HTML
+    StringBuffer result;          // lines joined together
+
+    lines = ShowDateTime1Text.splitLines(text);
+    if ((lines == null) || (lines.length == 1))
+      return((lines == null) ? text : lines[0]);
+    result = new StringBuffer(lines[0]);
+    for (i = 1; i < lines.length; i ++)
+      result.append(' ').append(lines[i]);
+    return(result.toString());
+  }
+
+/*
+  putLine() method
+
+  Add one line to the buffer, and wake up the writing thread.
+*/
+  synchronized void putLine(String line)
+  {
+    if (pending.length() > MAX_PENDING) // reader isn't keeping up
+      pending.setLength(0);       // throw away older lines
+    pending.append(line);
+    pending.append(newline);
+    notify();
+  }
+
+/*
+  run() method
+
+  The writing thread.  Wait for lines, and write everything that is waiting at
+  once.  Opening a named pipe waits until something reads from the pipe, which
+  is why we open files here, not in the clock thread.  If writing to a file
+  fails (the reader closed a pipe), then we open the file again.  If writing to
+  standard output fails, then nobody is listening, and the program ends.
+*/
+  public void run()
+  {
+    String batch;                 // lines to write now
+    Writer output;                // where we write lines
+
+    output = null;
+    while (true)
+    {
+      synchronized (this)
+      {
+        while (pending.length() == 0)
+        {
+          try { wait(); } catch (InterruptedException ie) { /* ignore */ }
+        }
+        batch = pending.toString();
+        pending.setLength(0);
+      }
+      try
+      {
+        if (output == null)
+          output = new BufferedWriter(new OutputStreamWriter(
+            (fileName.length() == 0) ? (OutputStream) System.out
+            : new FileOutputStream(fileName)));
+        output.write(batch);
+        output.flush();
+        if ((fileName.length() == 0) && System.out.checkError())
+          System.exit(0);         // standard output was closed
+      }
+      catch (IOException ioe)
+      {
+        if (fileName.length() == 0)
+          System.exit(0);         // standard output was closed
+        try { if (output != null) output.close(); }
+        catch (IOException ioe2) { /* ignore */ }
+        output = null;            // try again on next line
+        try { Thread.sleep(ShowDateTime1.TIMER_DELAY); } // don't spin on errors
+        catch (InterruptedException ie) { /* ignore */ }
+      }
+    }
+  } // end of run() method
+
+/*
+  streamText() method
+
+  Tick the clock forever, writing a line each time the text changes.  This
+  method never returns.
+*/
+  static void streamText(ShowDateTime1Options options)
+  {
+    long now;                     // current time in milliseconds
+    ShowDateTime1Stream stream;   // buffer and thread for writing lines
+    ShowDateTime1Text text;       // date/time text, updated in place
+
+    stream = new ShowDateTime1Stream(options.outputFile);
+    new Thread(stream, "ShowDateTime1Stream").start();
+    text = (options.scheduleFile != null) ? new ShowDateTime1Schedule(options)
+      : new ShowDateTime1Text((SimpleDateFormat) options.formatDate.clone());
+    while (true)
+    {
+      now = ShowDateTime1Clock.millis();
+      if (text.update(now))       // has date or time changed?
+      {
+        stream.putLine(plainText(text.getText())); // yes, write it
+        ShowDateTime1.firstShown(); // -y report after first line
+      }
+      try { Thread.sleep(ShowDateTime1Clock.realDelay(now, text.nextDelay(
+        now))); }
+      catch (InterruptedException ie) { /* ignore */ }
+    }
+  }
+
+} // end of ShowDateTime1Stream class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Text class
+
+  This class holds the formatted date and/or time for one compiled format in
+  one time zone, in a character buffer that is reused.  The update() method is
+  called on each clock tick.  It returns quickly, without looking at calendar
+  fields, if the time is inside the smallest unit that was formatted last.
+  Otherwise, calendar fields are compared with their previous values, and only
+  fields that changed are rewritten in the buffer.  No objects are allocated
+  in the steady state, except the String requested by the caller when the
+  text changes.  Formats that can't be compiled use SimpleDateFormat.
+*/
+
+class ShowDateTime1Text
+{
+  /* instance variables */
+
+  char[] buffer;                  // formatted text, updated in place
+  Calendar calendar;              // our private calendar for field values
+  Date date;                      // reused for SimpleDateFormat, time zones
+  SimpleDateFormat format;        // original formatter from caller
+  int length;                     // number of characters in <buffer>
+  boolean skipped;                // true if last change skipped a whole unit
+  ShowDateTime1Format plan;       // compiled format, or null if not compiled
+  char[] scratch;                 // for converting numbers to digits
+  int[] sizes;                    // length of each segment in <buffer>
+  int[] starts;                   // start of each segment in <buffer>
+  String text;                    // cached String for <buffer>, or null
+  ShowDateTime1Ticker ticker;     // finds boundaries of smallest unit
+  long validFrom, validUntil;     // times when current text is correct
+  int[] values;                   // previous calendar value for each field
+  SimpleDateFormat[] zoneFormats; // formatters for time zone fields
+
+/*
+  constructors
+
+  The formatter gives the pattern, locale, and time zone.  It must not be
+  changed later by the caller.
+*/
+  public ShowDateTime1Text(SimpleDateFormat format)
+  {
+    this(ShowDateTime1Format.compile(format), format);
+  }
+
+  public ShowDateTime1Text(ShowDateTime1Format plan, SimpleDateFormat format)
+  {
+    int i;                        // index variable
+
+    this.calendar = (Calendar) format.getCalendar().clone();
+    this.date = new Date();
+    this.format = format;
+    this.plan = plan;
+    this.text = null;
+    this.ticker = new ShowDateTime1Ticker(format);
+    this.validFrom = Long.MAX_VALUE; // nothing is valid yet
+    this.validUntil = Long.MIN_VALUE;
+
+    if (plan != null)             // set up buffer for compiled format
+    {
+      buffer = new char[64];      // will grow as necessary
+      length = 0;
+      scratch = new char[ShowDateTime1Format.MAX_DIGITS];
+      sizes = new int[plan.count];
+      starts = new int[plan.count];
+      values = new int[plan.count];
+      zoneFormats = new SimpleDateFormat[plan.count];
+      for (i = 0; i < plan.count; i ++)
+      {
+        starts[i] = length;
+        values[i] = Integer.MIN_VALUE; // no field has been formatted yet
+        if (plan.literals[i] != null) // literal text never changes
+          putChars(i, plan.literals[i], 0, plan.literals[i].length);
+        if (plan.patterns[i] != null) // time zones use SimpleDateFormat
+        {
+          zoneFormats[i] = (SimpleDateFormat) format.clone();
+          zoneFormats[i].applyPattern(plan.patterns[i]);
+        }
+      }
+    }
+  }
+
+/*
+  fieldValue() method
+
+  Return the calendar value for one field, already set in our calendar.  Time
+  zone fields return their offset and daylight saving flag, since the names
+  change only when one of those changes.
+*/
+  int fieldValue(int index)
+  {
+    int value;                    // result from calendar
+
+    switch (plan.letters[index])
+    {
+      case 'D': return(calendar.get(Calendar.DAY_OF_YEAR));
+      case 'E': return(calendar.get(Calendar.DAY_OF_WEEK));
+      case 'F': return(calendar.get(Calendar.DAY_OF_WEEK_IN_MONTH));
+      case 'G': return(calendar.get(Calendar.ERA));
+      case 'H': return(calendar.get(Calendar.HOUR_OF_DAY));
+      case 'K': return(calendar.get(Calendar.HOUR));
+      case 'L': case 'M':
+        value = calendar.get(Calendar.MONTH);
+        return((plan.names[index] != null) ? value : (value + 1));
+      case 'S': return(calendar.get(Calendar.MILLISECOND));
+      case 'W': return(calendar.get(Calendar.WEEK_OF_MONTH));
+      case 'Y':
+        value = ((GregorianCalendar) calendar).getWeekYear();
+        return((plan.counts[index] == 2) ? (value % 100) : value);
+      case 'a': return(calendar.get(Calendar.AM_PM));
+      case 'd': return(calendar.get(Calendar.DAY_OF_MONTH));
+      case 'h':
+        value = calendar.get(Calendar.HOUR);
+        return((value == 0) ? 12 : value);
+      case 'k':
+        value = calendar.get(Calendar.HOUR_OF_DAY);
+        return((value == 0) ? 24 : value);
+      case 'm': return(calendar.get(Calendar.MINUTE));
+      case 's': return(calendar.get(Calendar.SECOND));
+      case 'u': return(((calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7) + 1);
+      case 'w': return(calendar.get(Calendar.WEEK_OF_YEAR));
+      case 'y':
+        value = calendar.get(Calendar.YEAR);
+        return((plan.counts[index] == 2) ? (value % 100) : value);
+      default:                    // time zone fields: 'X', 'Z', 'z'
+        value = calendar.get(Calendar.DST_OFFSET);
+        return(((calendar.get(Calendar.ZONE_OFFSET) + value) * 2)
+          + ((value != 0) ? 1 : 0));
+    }
+  }
+
+/*
+  getText() method
+
+  Return the current text as a String.  A new String is created only after
+  the text changes.
+*/
+  public String getText()
+  {
+    if (text == null)
+      text = new String(buffer, 0, length);
+    return(text);
+  }
+
+/*
+  isCompiled() method
+
+  Return true if we are using a compiled format, false for SimpleDateFormat.
+*/
+  public boolean isCompiled()
+  {
+    return(plan != null);
+  }
+
+/*
+  nextDelay() method
+
+  Return the number of milliseconds to wait from the given time until the text
+  should change, for scheduling the next clock tick.  If update() was called
+  recently, the answer is already known.
+*/
+  public int nextDelay(long now)
+  {
+    if ((ticker.unit == Calendar.MILLISECOND) || (now < validFrom)
+      || (now >= validUntil))
+    {
+      return(ticker.nextDelay(now)); // let the ticker do the calendar work
+    }
+    return((int) Math.min(ShowDateTime1Ticker.TICK_LIMIT, (validUntil - now))
+      + ShowDateTime1Ticker.TICK_MARGIN);
+  }
+
+/*
+  putChars() method
+
+  Replace the text for one segment in our buffer, moving any following text if
+  the length changes.
+*/
+  void putChars(int index, char[] source, int offset, int count)
+  {
+    int change;                   // change in length of this segment
+    int i;                        // index variable
+    int tail;                     // start of text after this segment
+
+    change = count - sizes[index];
+    if (change != 0)              // move following text
+    {
+      if ((length + change) > buffer.length) // grow buffer if necessary
+      {
+        char[] bigger = new char[(length + change) * 2];
+        System.arraycopy(buffer, 0, bigger, 0, length);
+        buffer = bigger;
+      }
+      tail = starts[index] + sizes[index];
+      System.arraycopy(buffer, tail, buffer, (tail + change), (length - tail));
+      length += change;
+      sizes[index] = count;
+      for (i = index + 1; i < plan.count; i ++)
+        starts[i] += change;
+    }
+    System.arraycopy(source, offset, buffer, starts[index], count);
+  }
+
+/*
+  putField() method
+
+  Format one field from its calendar value.
+*/
+  void putField(int index, int value, long now)
+  {
+    int i;                        // index into <scratch>
+    int minimum;                  // minimum number of digits
+    char zero;                    // digit zero for our locale
+
+    if (plan.names[index] != null) // name of month, day, era, AM/PM
+    {
+      char[] name = plan.names[index][value];
+      putChars(index, name, 0, name.length);
+    }
+    else if (zoneFormats[index] != null) // time zones change rarely
+    {
+      date.setTime(now);
+      char[] name = zoneFormats[index].format(date).toCharArray();
+      putChars(index, name, 0, name.length);
+    }
+    else                          // numbers, padded with zeros
+    {
+      i = scratch.length;
+      minimum = Math.min(scratch.length, plan.counts[index]);
+      zero = plan.zeroDigit;
+      do
+      {
+        scratch[-- i] = (char) (zero + (value % 10));
+        value /= 10;
+      } while ((value > 0) && (i > 0));
+      while ((scratch.length - i) < minimum)
+        scratch[-- i] = zero;
+      putChars(index, scratch, i, (scratch.length - i));
+    }
+  }
+
+/*
+  decodeHtml() method
+
+  Convert simple HTML text to plain characters, with a newline ('\n') between
+  lines, and return the number of characters in the result, or -1 if the text
+  isn't simple.  The result can't be longer than the input.  Only <html>,
+  <body>, and <br> tags are allowed; white space is collapsed as HTML would;
+  and a few character entities are replaced.  Nothing is allocated, so this
+  can be called for every frame.
+*/
+  static int decodeHtml(char[] text, int count, char[] result)
+  {
+    char ch;                      // one character from text
+    int end;                      // index of end of tag or entity
+    int i;                        // index variable
+    int length;                   // number of characters in result
+
+    i = 6;                        // skip over "<html>"
+    length = 0;
+    while (i < count)
+    {
+      ch = text[i];
+      if (ch == '<')              // start of a tag
+      {
+        end = i;
+        while ((end < count) && (text[end] != '>')) end ++;
+        if (end >= count)
+          return(-1);             // broken HTML
+        if (isWord(text, (i + 1), end, "br") || isWord(text, (i + 1), end,
+          "br/") || isWord(text, (i + 1), end, "br /"))
+        {
+          if ((length > 0) && (result[length - 1] == ' '))
+            length --;            // no space at end of line
+          result[length ++] = '\n';
+        }
+        else if ((isWord(text, (i + 1), end, "html") || isWord(text, (i + 1),
+          end, "/html") || isWord(text, (i + 1), end, "body") || isWord(text,
+          (i + 1), end, "/body")) == false)
+        {
+          return(-1);             // any other tag goes to JLabel
+        }
+        i = end + 1;
+      }
+      else if (ch == '&')         // start of a character entity
+      {
+        end = i;
+        while ((end < count) && (text[end] != ';')) end ++;
+        if (end >= count) return(-1);
+        else if (isWord(text, (i + 1), end, "amp")) result[length ++] = '&';
+        else if (isWord(text, (i + 1), end, "gt")) result[length ++] = '>';
+        else if (isWord(text, (i + 1), end, "lt")) result[length ++] = '<';
+        else if (isWord(text, (i + 1), end, "nbsp"))
+          result[length ++] = '\u00A0'; // no-break space
+        else if (isWord(text, (i + 1), end, "quot")) result[length ++] = '"';
+        else
+          return(-1);             // anything else goes to JLabel
+        i = end + 1;
+      }
+      else if (Character.isWhitespace(ch)) // HTML collapses white space
+      {
+        if ((length > 0) && (result[length - 1] != ' ') && (result[length - 1]
+          != '\n'))
+        {
+          result[length ++] = ' ';
+        }
+        i ++;
+      }
+      else
+        result[length ++] = text[i ++];
+    }
+    if ((length > 0) && (result[length - 1] == ' '))
+      length --;                  // no space at end of last line
+    return(length);
+
+  } // end of decodeHtml() method
+
+/*
+  isHtml() method
+
+  Return true if the given characters start with an <html> tag.
+*/
+  static boolean isHtml(char[] text, int count)
+  {
+    return((count >= 6) && isWord(text, 0, 6, "<html>"));
+  }
+
+/*
+  isWord() method
+
+  Return true if some characters, without leading or trailing spaces, are the
+  given word in lowercase, ignoring case.
+*/
+  static boolean isWord(char[] text, int start, int end, String word)
+  {
+    int i;                        // index variable
+
+    while ((start < end) && (text[start] <= ' ')) start ++;
+    while ((end > start) && (text[end - 1] <= ' ')) end --;
+    if ((end - start) != word.length())
+      return(false);
+    for (i = 0; i < word.length(); i ++)
+      if (Character.toLowerCase(text[start + i]) != word.charAt(i))
+        return(false);
+    return(true);
+  }
+
+/*
+  splitLines() method
+
+  If the given text is simple enough for ShowDateTime1Label to draw (or for
+  plain text output), then return an array of lines.  Otherwise, return null.
+  Plain text (not HTML) is one line, exactly as given.  HTML is converted by
+  decodeHtml().
+*/
+  static String[] splitLines(String text)
+  {
+    char[] chars;                 // characters from caller's text
+    int count;                    // number of characters after decoding
+    int i;                        // index variable
+    Vector<String> list;          // completed lines
+    int start;                    // start of current line
+
+    if (text == null)             // JLabel handles null text
+      return(null);
+    chars = text.toCharArray();
+    if (isHtml(chars, chars.length) == false)
+    {
+      String[] result = { text }; // plain text is one line
+      return(result);
+    }
+
+    count = decodeHtml(chars, chars.length, chars); // decode in place
+    if (count < 0)
+      return(null);
+    list = new Vector<String>();
+    start = 0;
+    for (i = 0; i <= count; i ++)
+    {
+      if ((i == count) || (chars[i] == '\n'))
+      {
+        list.add(new String(chars, start, (i - start)));
+        start = i + 1;
+      }
+    }
+    return(list.toArray(new String[list.size()]));
+
+  } // end of splitLines() method
+
+/*
+  tickInterval() method
+
+  Return the usual number of milliseconds between clock ticks for this text,
+  as nextDelay() schedules them: one tick per change, but never less than
+  TIMER_DELAY (for milliseconds, or the short interval around a time zone
+  change) and never more than TICK_LIMIT.  Call after update().
+*/
+  public int tickInterval()
+  {
+    if (ticker.unit == Calendar.MILLISECOND) // polled ten times per second
+      return(ShowDateTime1.TIMER_DELAY);
+    return((int) Math.min(ShowDateTime1Ticker.TICK_LIMIT, Math.max(
+      ShowDateTime1.TIMER_DELAY, (validUntil - validFrom))));
+  }
+
+/*
+  update() method
+
+  Update our text for the given time in milliseconds.  Return true if the
+  text has changed, false if it is the same.
+*/
+  public boolean update(long now)
+  {
+    boolean changed;              // true if any part of the text changed
+    int i;                        // index variable
+    int value;                    // calendar value for one field
+
+    if ((now >= validFrom) && (now < validUntil)) // still the same unit?
+      return(false);              // yes, nothing can have changed
+
+    changed = false;
+    skipped = (validUntil > (validFrom + 1)) && (now >= (validUntil
+      + validUntil - validFrom)); // later than the end of the next unit
+    if (plan == null)             // not compiled, use SimpleDateFormat
+    {
+      date.setTime(now);
+      String newText = format.format(date);
+      if (newText.equals(text) == false) // has date or time changed?
+      {
+        changed = true;
+        text = newText;
+      }
+    }
+    else                          // compiled format: compare each field
+    {
+      calendar.setTimeInMillis(now);
+      for (i = 0; i < plan.count; i ++)
+      {
+        if (plan.letters[i] == 0) // literal text never changes
+          continue;
+        value = fieldValue(i);
+        if (value != values[i])
+        {
+          changed = true;
+          putField(i, value, now);
+          values[i] = value;
+        }
+      }
+      if (changed)
+        text = null;              // create a new String only if requested
+    }
+
+    /* Remember when the smallest unit starts and ends, so that later calls
+    can return immediately.  Seconds and milliseconds don't need a calendar,
+    since time zone offsets are whole seconds. */
+
+    if (ticker.unit == Calendar.MILLISECOND)
+    {
+      validFrom = now;
+      validUntil = now + 1;
+    }
+    else if (ticker.unit == Calendar.SECOND)
+    {
+      validFrom = now - (((now % 1000) + 1000) % 1000);
+      validUntil = validFrom + 1000;
+    }
+    else
+    {
+      validFrom = ticker.thisBoundary(now);
+      validUntil = ticker.nextBoundary(now);
+      value = calendar.getTimeZone().getOffset(now); // can't span a change
+      if ((validFrom > now) || (validUntil <= now) || (value != calendar
+        .getTimeZone().getOffset(validFrom)) || (value != calendar
+        .getTimeZone().getOffset(validUntil - 1)))
+      {
+        validFrom = now;          // daylight saving time changes this unit,
+        validUntil = now + 1;     // ... so check fields on every tick
+      }
+    }
+    return(changed);
+
+  } // end of update() method
+
+} // end of ShowDateTime1Text class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Ticker class
+
+  This class finds the smallest time unit in a SimpleDateFormat pattern, and
+  calculates how long to sleep until the next real boundary of that unit in
+  the formatter's time zone.  Boundaries are found with a Calendar, not simple
+  arithmetic, so that hours and days are correct for time zones with 30 or 45
+  minute offsets, and for daylight saving time changes.
+*/
+
+class ShowDateTime1Ticker
+{
+  /* constants */
+
+  static final int TICK_LIMIT = 60000; // longest sleep before checking clock
+  static final int TICK_MARGIN = 5; // milliseconds to wake after a boundary
+
+  /* instance variables */
+
+  Calendar calendar;              // private calendar for finding boundaries
+  int unit;                       // smallest Calendar field in date format
+
+/*
+  constructor
+*/
+  public ShowDateTime1Ticker(SimpleDateFormat format)
+  {
+    calendar = (Calendar) format.getCalendar().clone(); // same time zone
+    unit = findUnit(format.toPattern()); // smallest unit that gets displayed
+  }
+
+/*
+  findUnit() method
+
+  Return the smallest Calendar field that appears in a SimpleDateFormat pattern
+  string.  Text inside single quotes is literal, and two single quotes are one
+  quote.  Time zone names and offsets change on hour boundaries (daylight
+  saving time) as do AM/PM markers, so they count as hours.  Anything else is
+  assumed to change at midnight.
+*/
+  static int findUnit(String pattern)
+  {
+    char ch;                      // one character from pattern string
+    int i;                        // index variable
+    boolean quoted;               // true if inside quoted literal text
+    int result;                   // our smallest field so far
+
+    quoted = false;               // pattern starts outside of quotes
+    result = Calendar.DATE;       // assume days until we see something smaller
+    for (i = 0; i < pattern.length(); i ++)
+    {
+      ch = pattern.charAt(i);     // get one character from pattern
+      if (ch == '\'')            // quote toggles literal text (also for '')
+        quoted = ! quoted;
+      else if (quoted || (((ch < 'A') || (ch > 'Z')) && ((ch < 'a')
+        || (ch > 'z'))))
+      {
+        /* Ignore literal text and anything that isn't a pattern letter. */
+      }
+      else if (ch == 'S')         // milliseconds
+        return(Calendar.MILLISECOND); // nothing is smaller than this
+      else if (ch == 's')         // seconds
+        result = Calendar.SECOND;
+      else if (ch == 'm')         // minutes
+      {
+        if (result != Calendar.SECOND)
+          result = Calendar.MINUTE;
+      }
+      else if ((ch == 'a') || (ch == 'H') || (ch == 'h') || (ch == 'K')
+        || (ch == 'k') || (ch == 'X') || (ch == 'Z') || (ch == 'z'))
+      {
+        if (result == Calendar.DATE)
+          result = Calendar.HOUR_OF_DAY;
+      }
+    }
+    return(result);
+  }
+
+/*
+  nextBoundary() method
+
+  Return the time in milliseconds when the smallest displayed unit next
+  changes, strictly after the given time.  Do not call for milliseconds.
+*/
+  long nextBoundary(long now)
+  {
+    truncate(now);                // start of the current unit
+    calendar.add(unit, 1);        // start of the next unit
+    return(calendar.getTimeInMillis());
+  }
+
+/*
+  nextDelay() method
+
+  Return the number of milliseconds to wait from the given time until the date
+  or time should change.  We wake a few milliseconds after the boundary, since
+  timers may fire early, and never sleep longer than TICK_LIMIT, so that jumps
+  in the system clock and time zone changes are noticed in a reasonable time.
+*/
+  int nextDelay(long now)
+  {
+    long delay;                   // milliseconds until next boundary
+
+    if (unit == Calendar.MILLISECOND) // sub-second formats poll as before
+      return(ShowDateTime1.TIMER_DELAY);
+    delay = nextBoundary(now) - now; // may be zero or negative in odd cases
+    if ((delay <= 0) || (delay > TICK_LIMIT)) // ambiguous hour, etc
+      delay = Math.min(TICK_LIMIT, Math.max(ShowDateTime1.TIMER_DELAY, delay));
+    return((int) delay + TICK_MARGIN);
+  }
+
+/*
+  thisBoundary() method
+
+  Return the time in milliseconds when the smallest displayed unit last
+  changed, at or before the given time.  This may be later than the given time
+  during the repeated hour when daylight saving time ends, which callers must
+  treat as "unknown".  Do not call for milliseconds.
+*/
+  long thisBoundary(long now)
+  {
+    truncate(now);                // start of the current unit
+    return(calendar.getTimeInMillis());
+  }
+
+/*
+  truncate() method
+
+  Set our calendar to the given time, and then clear all fields smaller than
+  our unit.
+*/
+  void truncate(long now)
+  {
+    boolean clear;                // true for our unit and all smaller units
+
+    calendar.setTimeInMillis(now); // start from the current time
+    clear = (unit == Calendar.DATE); // clear everything below our unit
+    if (clear)
+      calendar.set(Calendar.HOUR_OF_DAY, 0);
+    clear = clear || (unit == Calendar.HOUR_OF_DAY);
+    if (clear)
+      calendar.set(Calendar.MINUTE, 0);
+    clear = clear || (unit == Calendar.MINUTE);
+    if (clear)
+      calendar.set(Calendar.SECOND, 0);
+    calendar.set(Calendar.MILLISECOND, 0);
+  }
+
+} // end of ShowDateTime1Ticker class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1User class
+
+  This class listens to input from the user and passes back event parameters to
+  a method in the window class.  The shared update timer has no window.
+*/
+
+class ShowDateTime1User implements ActionListener, ComponentListener,
+  KeyListener, MouseListener, WindowListener
+{
+  /* instance variables */
+
+  ShowDateTime1Window window;     // window that we listen to, or null
+
+  /* constructor */
+
+  public ShowDateTime1User(ShowDateTime1Window window)
+  {
+    this.window = window;
+  }
+
+  /* button listener, dialog boxes, menu items, timer, etc */
+
+  public void actionPerformed(ActionEvent event)
+  {
+    if (window == null)           // only our shared timer has no window
+      ShowDateTime1Window.updateAll();
+    else
+      window.userButton(event);
+  }
+
+  /* component listener: stop updating a window that can't be seen */
+
+  public void componentHidden(ComponentEvent event)
+  {
+    window.checkVisible();
+  }
+  public void componentMoved(ComponentEvent event) { /* not used */ }
+  public void componentResized(ComponentEvent event) { /* not used */ }
+  public void componentShown(ComponentEvent event)
+  {
+    window.checkVisible();
+  }
+
+  /* keyboard listener: special key to exit application */
+
+  public void keyPressed(KeyEvent event) { /* not used */ }
+  public void keyReleased(KeyEvent event)
+  {
+    if (event.getKeyCode() == KeyEvent.VK_ESCAPE) // only the Escape key
+      System.exit(0);             // always exit with zero status from GUI
+  }
+  public void keyTyped(KeyEvent event) { /* not used */ }
+
+  /* mouse listener: always the cancel/exit pop-up menu */
+
+  public void mouseClicked(MouseEvent event)
+  {
+    window.popupMenu().show(event.getComponent(), event.getX(), event
+      .getY());
+  }
+  public void mouseEntered(MouseEvent event) { /* not used */ }
+  public void mouseExited(MouseEvent event) { /* not used */ }
+  public void mousePressed(MouseEvent event) { /* not used */ }
+  public void mouseReleased(MouseEvent event) { /* not used */ }
+
+  /* window listener: closing one window may end the program, and iconified
+  windows aren't updated */
+
+  public void windowActivated(WindowEvent event) { /* not used */ }
+  public void windowClosed(WindowEvent event)
+  {
+    window.windowClosed();
+  }
+  public void windowClosing(WindowEvent event) { /* not used */ }
+  public void windowDeactivated(WindowEvent event) { /* not used */ }
+  public void windowDeiconified(WindowEvent event)
+  {
+    window.iconified = false;
+    window.checkVisible();
+  }
+  public void windowIconified(WindowEvent event)
+  {
+    window.iconified = true;
+    window.checkVisible();
+  }
+  public void windowOpened(WindowEvent event) { /* not used */ }
+
+} // end of ShowDateTime1User class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  ShowDateTime1Window class
+
+  This class is one window with one or more clocks.  Each window has its own
+  options.  All windows share one timer, which wakes up for the earliest change
+  in any clock, and share fonts with the same name and size.  The program ends
+  when the last window is closed.
+
+  Windows that are iconified or hidden aren't updated, and when no window can
+  be seen, the timer stops completely.  A window is brought up to date with
+  one change to each clock when it can be seen again.  Java doesn't tell us
+  when a window is covered by other windows or when the screen is locked.
+
+  Nothing that isn't needed to show the time is done before the first paint:
+  the pop-up menu is created on the first mouse click, and statistics and
+  watching options files are started after the first paint.
+*/
+
+class ShowDateTime1Window implements Runnable
+{
+  /* class variables */
+
+  static HashMap<String, Font> fontCache
+    = new HashMap<String, Font>(); // shared fonts by name and size
+  static int metricSeconds = -1;  // -m option, started after first paint
+  static volatile boolean painted; // true after first clock has been drawn
+  static long plannedTick;        // when next tick should happen, nanoseconds
+  static int startupSteps;        // first paint and all windows created
+  static javax.swing.Timer updateTimer; // one timer for all windows
+  static Vector<ShowDateTime1Window> windows
+    = new Vector<ShowDateTime1Window>(); // all windows still open
+
+  /* instance variables */
+
+  ShowDateTime1Canvas[] clockCanvases; // for -r option, or null if labels
+  JPanel clockGrid;               // grid of clocks, or null if only one
+  ShowDateTime1Label[] clockLabels; // text area for each clock, or null
+  Vector<String[]> clockList;     // list of clocks: zone, format, label
+  JLabel[] clockNames;            // label under each clock, or null
+  ShowDateTime1Text[] clockTexts; // date/time text for each clock
+  Component[] clockViews;         // canvas or label for each clock
+  ShowDateTime1Config config;     // options file that we watch, or null
+  boolean iconified;              // true if window has been iconified
+  JFrame mainFrame;               // this window
+  JMenuItem menuCancel, menuExit; // menu items for <menuPopup>
+  JPopupMenu menuPopup;           // pop-up menu, or null until first click
+  ShowDateTime1Options options;   // options for this window, may change
+  ShowDateTime1Remote remote;     // text from time server, or null
+  boolean reshaping;              // true while borders are being changed
+  GraphicsConfiguration screen;   // screen that window was put on
+  volatile boolean suspended;     // true if window can't be seen
+  long suspendedAt;               // when window was hidden, in milliseconds
+
+/*
+  constructor
+
+  Create and show one window on the given screen.
+*/
+  public ShowDateTime1Window(ShowDateTime1Options options,
+    GraphicsConfiguration screen)
+  {
+    ShowDateTime1User action;     // our action listener
+    Rectangle bounds;             // position and size of our screen
+    int i;                        // index variable
+    long now;                     // current time in milliseconds
+    Color panelColor, textColor;  // background and foreground colors
+
+    if (options.configFile != null) // more options from a file we watch
+    {
+      config = new ShowDateTime1Config(this, options);
+      options = config.firstOptions(); // exits on errors
+    }
+    this.options = options;
+    this.screen = screen;
+    action = new ShowDateTime1User(this); // listener for this window only
+    panelColor = new Color(options.panelColor);
+    textColor = new Color(options.textColor);
+
+    /* Output text area for the date and/or time display.  We use a simple
+    JLabel to center the text both horizontally and vertically.  Our subclass
+    draws plain text and simple HTML (only <br> for new lines) by itself.
+    There is one text area for each clock, and usually only one clock.  The
+    -r option uses canvases drawn by their own thread instead of labels. */
+
+    if ((options.clockFile == null) || (options.scheduleFile != null)
+      || (options.serverAddress != null))
+    {                             // one clock in local time zone, no label
+      clockList = new Vector<String[]>();
+      clockList.add(new String[] { null, null, null });
+    }
+    else
+      clockList = ShowDateTime1.readClockList(options.clockFile);
+                                  // exits on errors
+    if ((options.refreshRate < 0) || (options.serverAddress != null))
+                                  // labels repainted on clock ticks
+      clockLabels = new ShowDateTime1Label[clockList.size()];
+    else                          // canvases drawn for every frame
+      clockCanvases = new ShowDateTime1Canvas[clockList.size()];
+    clockTexts = new ShowDateTime1Text[clockList.size()];
+    clockViews = new Component[clockList.size()];
+    now = ShowDateTime1Clock.millis(); // one clock reading for all
+    for (i = 0; i < clockList.size(); i ++)
+    {
+      clockTexts[i] = createText(clockList.get(i));
+      clockTexts[i].update(now);  // format current date/time
+      if (clockLabels != null)
+      {
+        clockLabels[i] = new ShowDateTime1Label(clockTexts[i].getText(),
+          JLabel.CENTER);
+        clockLabels[i].setOpaque(true); // use our choice for background color
+        clockViews[i] = clockLabels[i];
+      }
+      else
+        clockViews[i] = clockCanvases[i] = new ShowDateTime1Canvas(this,
+          clockTexts[i]);
+      clockViews[i].addKeyListener(action);
+      clockViews[i].addMouseListener(action);
+      clockViews[i].setBackground(panelColor);
+      clockViews[i].setFocusable(i == 0); // accept keyboard characters
+      clockViews[i].setFont(getFont(options.fontName, options.fontSize));
+      clockViews[i].setForeground(textColor);
+    }
+
+    /* The main application window.  Use setUndecorated(true) to remove borders
+    and window controls, and to use the full screen for a maximized window.
+    Multiple clocks go in a grid that is about as wide as it is high, with the
+    label under each clock.  The window position is relative to our screen. */
+
+    mainFrame = new JFrame("Date Time Zone", screen);
+    if (clockViews.length == 1)   // only one clock
+      mainFrame.getContentPane().add(clockViews[0], BorderLayout.CENTER);
+    else
+    {
+      int columns = (int) Math.ceil(Math.sqrt(clockViews.length));
+      clockGrid = new JPanel(new GridLayout(0, columns, 1, 1));
+      clockGrid.setBackground(textColor); // thin lines between clocks
+      clockNames = new JLabel[clockViews.length];
+      for (i = 0; i < clockViews.length; i ++)
+      {
+        String[] entry = clockList.get(i);
+        JLabel label = clockNames[i] = new JLabel(entry[2], JLabel.CENTER);
+        label.addMouseListener(action);
+        label.setBackground(panelColor);
+        label.setFont(getFont(options.fontName, Math.max(10,
+          (options.fontSize / 2))));
+        label.setForeground(textColor);
+        label.setOpaque(true);
+        JPanel cell = new JPanel(new BorderLayout());
+        cell.add(clockViews[i], BorderLayout.CENTER);
+        cell.add(label, BorderLayout.SOUTH);
+        clockGrid.add(cell);
+      }
+      mainFrame.getContentPane().add(clockGrid, BorderLayout.CENTER);
+    }
+    bounds = screen.getBounds();
+    mainFrame.addComponentListener(action); // so we know if window is hidden
+    mainFrame.addWindowListener(action); // so we know when window closes
+    mainFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+    mainFrame.setLocation((bounds.x + options.windowLeft), (bounds.y
+      + options.windowTop));      // normal top-left corner
+    mainFrame.setSize(options.windowWidth, options.windowHeight);
+                                  // size of normal window
+    mainFrame.setUndecorated(! options.borderFlag); // borders and controls
+    if (options.maximizeFlag) mainFrame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+    mainFrame.validate();         // recheck application window layout
+    mainFrame.setVisible(true);   // and then show application window
+    clockViews[0].requestFocusInWindow(); // give keyboard focus to text
+    windows.add(this);
+    for (i = 0; (clockCanvases != null) && (i < clockCanvases.length); i ++)
+      ShowDateTime1Canvas.start(clockCanvases[i], options.refreshRate, screen);
+    if (options.serverAddress != null) // text comes from time server
+    {
+      remote = new ShowDateTime1Remote(options.serverAddress, options
+        .formatDate.toPattern(), clockLabels[0]);
+      Thread thread = new Thread(remote, "ShowDateTime1Remote");
+      thread.setDaemon(true);     // windows decide when program ends
+      thread.start();
+    }
+
+  } // end of constructor
+
+/*
+  applyOptions() method
+
+  Called on the event dispatch thread with new options from our -a file.  Only
+  what has changed is done: a new date format replaces the text of each clock
+  that uses the -d format, and a new font or colors are given to the labels
+  we already have.  The window is laid out again only if the font changed,
+  and is taken down and shown again only if its borders changed.  Nothing
+  else is created again, so the clocks never go blank.
+*/
+  void applyOptions(ShowDateTime1Options newer)
+  {
+    Rectangle bounds;             // position and size of our screen
+    int i;                        // index variable
+    long now;                     // current time in milliseconds
+    ShowDateTime1Options older;   // options that we had before
+
+    older = options;
+    options = newer;
+    now = ShowDateTime1Clock.millis();
+
+    if ((newer.formatDate.toPattern().equals(older.formatDate.toPattern())
+      == false) && (newer.scheduleFile == null)) // new format, new text
+    {
+      for (i = 0; i < clockTexts.length; i ++)
+      {
+        String[] entry = clockList.get(i);
+        if (entry[1] != null)     // clock has its own format
+          continue;
+        ShowDateTime1Text text = createText(entry);
+        text.update(now);
+        if (clockCanvases != null) // drawing thread may be using old text
+        {
+          synchronized (ShowDateTime1Canvas.canvases)
+          {
+            clockTexts[i] = clockCanvases[i].clock = text;
+            clockCanvases[i].count = -1; // decode on next frame
+          }
+        }
+        else
+        {
+          clockTexts[i] = text;
+          if (remote == null)     // label shows our own text
+            clockLabels[i].setText(text.getText());
+        }
+      }
+      if (remote != null)         // ask time server for the new format
+        remote.setPattern(newer.formatDate.toPattern());
+    }
+
+    if ((newer.fontName.equals(older.fontName) == false) || (newer.fontSize
+      != older.fontSize))         // new font, sizes change
+    {
+      Font font = getFont(newer.fontName, newer.fontSize);
+      for (i = 0; i < clockViews.length; i ++)
+        clockViews[i].setFont(font);
+      for (i = 0; (clockNames != null) && (i < clockNames.length); i ++)
+        clockNames[i].setFont(getFont(newer.fontName, Math.max(10,
+          (newer.fontSize / 2))));
+      mainFrame.validate();       // only layout that can change
+    }
+
+    if ((newer.panelColor != older.panelColor) || (newer.textColor
+      != older.textColor))        // new colors, same sizes
+    {
+      Color panelColor = new Color(newer.panelColor);
+      Color textColor = new Color(newer.textColor);
+      for (i = 0; i < clockViews.length; i ++)
+      {
+        clockViews[i].setBackground(panelColor);
+        clockViews[i].setForeground(textColor);
+      }
+      for (i = 0; (clockNames != null) && (i < clockNames.length); i ++)
+      {
+        clockNames[i].setBackground(panelColor);
+        clockNames[i].setForeground(textColor);
+      }
+      if (clockGrid != null)
+        clockGrid.setBackground(textColor);
+    }
+
+    if (newer.borderFlag != older.borderFlag) // frame must be redone
+    {
+      synchronized (ShowDateTime1Canvas.canvases) // not while drawing
+      {
+        reshaping = true;         // windowClosed() will ignore us
+        mainFrame.dispose();      // can't change borders while displayable
+        mainFrame.setUndecorated(! newer.borderFlag);
+        for (i = 0; (clockCanvases != null) && (i < clockCanvases.length);
+          i ++)
+        {
+          clockCanvases[i].strategy = null; // buffers went with the frame
+        }
+        mainFrame.setVisible(true);
+      }
+      clockViews[0].requestFocusInWindow(); // give keyboard focus to text
+    }
+    if ((newer.windowLeft != older.windowLeft) || (newer.windowTop
+      != older.windowTop) || (newer.windowWidth != older.windowWidth)
+      || (newer.windowHeight != older.windowHeight))
+    {
+      bounds = screen.getBounds(); // position is relative to our screen
+      mainFrame.setBounds((bounds.x + newer.windowLeft), (bounds.y
+        + newer.windowTop), newer.windowWidth, newer.windowHeight);
+    }
+    if ((newer.maximizeFlag != older.maximizeFlag) || (newer.borderFlag
+      != older.borderFlag))       // showing again may lose maximized state
+    {
+      mainFrame.setExtendedState(newer.maximizeFlag ? JFrame.MAXIMIZED_BOTH
+        : JFrame.NORMAL);
+    }
+
+    if (updateTimer != null)      // new format may change sooner or later
+      scheduleTick(now);
+  }
+
+/*
+  checkVisible() method
+
+  Called when a window is iconified, restored, hidden, or shown.  Stop updating
+  a window that can't be seen, and bring it up to date when it can be seen
+  again, before restarting the shared timer with the new earliest change.
+*/
+  void checkVisible()
+  {
+    int i;                        // index variable
+    ShowDateTime1Metrics metrics; // statistics, or null if not wanted
+    long now;                     // current time in milliseconds
+
+    if (suspended == (iconified || (mainFrame.isShowing() == false)))
+      return;                     // nothing has changed
+    suspended = ! suspended;
+    now = ShowDateTime1Clock.millis();
+    if (suspended)
+      suspendedAt = now;
+    else
+    {
+      metrics = ShowDateTime1Metrics.active;
+      if (metrics != null)        // count what we didn't do
+      {
+        synchronized (metrics)    // shared with readers
+        {
+          metrics.suspensions ++;
+          metrics.suspendedMillis += Math.max(0, (now - suspendedAt));
+          for (i = 0; i < clockTexts.length; i ++)
+            metrics.skippedUpdates += Math.max(0, (now - suspendedAt))
+              / clockTexts[i].tickInterval(); // as the timer would tick
+        }
+      }
+      for (i = 0; (clockLabels != null) && (remote == null) && (i
+        < clockTexts.length); i ++)
+      {
+        if (clockTexts[i].update(now)) // one catch-up change for each clock
+          clockLabels[i].setText(clockTexts[i].getText());
+      }
+    }
+    if (updateTimer != null)      // null while windows are being created
+      scheduleTick(now);
+  }
+
+/*
+  createText() method
+
+  Return the date/time text for one clock in our list: time zone, date format
+  (or null for the -d format), and label.  The -q option has countdowns
+  instead.
+*/
+  ShowDateTime1Text createText(String[] entry)
+  {
+    if ((options.scheduleFile != null) && (options.serverAddress == null))
+      return(new ShowDateTime1Schedule(options)); // countdowns, not a clock
+    SimpleDateFormat format = (SimpleDateFormat) ((entry[1] == null)
+      ? options.formatDate : new SimpleDateFormat(entry[1])).clone();
+    if (entry[0] != null)         // time zone for this clock
+      format.setTimeZone(TimeZone.getTimeZone(entry[0]));
+    return(new ShowDateTime1Text(ShowDateTime1Format.shared(format),
+      format));                   // compile each date format only once
+  }
+
+/*
+  firstPaint() method
+
+  Called once by whatever drew the first clock: a label on the event dispatch
+  thread, or a canvas on its own thread.  Print the -y startup report, then
+  start the work that was waiting for the first paint.
+*/
+  static synchronized void firstPaint()
+  {
+    if (painted)                  // only the first paint counts
+      return;
+    painted = true;
+    ShowDateTime1.firstShown();   // -y report; -yx exits here
+    startLater();                 // may be before all windows are created
+
+  } // end of firstPaint() method
+
+/*
+  getFont() method
+
+  Return a font with the given name and point size, shared by all windows.
+*/
+  static Font getFont(String name, int size)
+  {
+    String key = name + "/" + size; // name can't end with a slash and digits
+    Font result = fontCache.get(key);
+    if (result == null)
+    {
+      result = new Font(name, Font.PLAIN, size);
+      fontCache.put(key, result);
+    }
+    return(result);
+  }
+
+/*
+  nextDelay() method
+
+  Return the number of milliseconds to wait from the given time until the text
+  for any clock in a visible window should change, less any time already spent
+  on this tick.  Return -1 if no window can be seen.
+*/
+  static int nextDelay(long now)
+  {
+    int delay;                    // shortest delay so far
+    int i, k;                     // index variables
+    boolean visible;              // true if any window can be seen
+
+    delay = ShowDateTime1Ticker.TICK_LIMIT + ShowDateTime1Ticker.TICK_MARGIN;
+    visible = false;
+    for (i = 0; i < windows.size(); i ++)
+    {
+      ShowDateTime1Window window = windows.get(i);
+      if (window.suspended || (window.clockLabels == null)
+        || (window.remote != null)) // hidden, drawn for every frame, or
+        continue;                 // ... text comes from time server
+      visible = true;
+      for (k = 0; k < window.clockTexts.length; k ++)
+        delay = Math.min(delay, window.clockTexts[k].nextDelay(now));
+    }
+    if (visible == false)
+      return(-1);
+    return((int) Math.max(0, (delay - (ShowDateTime1Clock.millis() - now))));
+  }
+
+/*
+  popupMenu() method
+
+  Return the pop-up menu invoked by any mouse click on the text area, creating
+  it on the first click.  Swing menus are slow to load, and most clocks are
+  never clicked.
+*/
+  JPopupMenu popupMenu()
+  {
+    ShowDateTime1User action;     // our action listener
+
+    if (menuPopup == null)        // first mouse click on this window
+    {
+      action = new ShowDateTime1User(this);
+      menuPopup = new JPopupMenu();
+
+      menuCancel = new JMenuItem("Cancel"); // ignore the mouse click
+      menuCancel.addActionListener(action);
+      menuPopup.add(menuCancel);
+
+      menuExit = new JMenuItem("Exit"); // exit from this application
+      menuExit.addActionListener(action);
+      menuPopup.add(menuExit);
+
+      if (clockCanvases != null)  // heavyweight popup shows over canvases
+        menuPopup.setLightWeightPopupEnabled(false);
+    }
+    return(menuPopup);
+
+  } // end of popupMenu() method
+
+/*
+  run() method
+
+  Start the work that waited for the first paint, on the event dispatch
+  thread: statistics for the -m option (JMX is slow to start), and watching
+  options files for the -a option in every window.
+*/
+  public void run()
+  {
+    int i;                        // index variable
+    ShowDateTime1Window window;   // one window from our list
+
+    if (metricSeconds >= 0)       // statistics for all windows
+      ShowDateTime1Metrics.start(metricSeconds);
+    for (i = 0; i < windows.size(); i ++)
+    {
+      window = windows.get(i);
+      if (window.config != null)  // options may change from now on
+        window.config.watch();
+    }
+
+  } // end of run() method
+
+/*
+  scheduleTick() method
+
+  Recalculate the delay from the current clock on every tick, instead of
+  adding a fixed interval.  Timers drift, and the system clock may jump
+  forward or backward; both are corrected on the next tick.  The timer stops
+  when no window can be seen.
+*/
+  static void scheduleTick(long now)
+  {
+    int delay = nextDelay(now);   // milliseconds until something changes
+    if (delay < 0)                // no window can be seen
+    {
+      updateTimer.stop();         // until one is restored or shown
+      return;
+    }
+    delay = ShowDateTime1Clock.realDelay(now, delay); // virtual clock?
+    plannedTick = System.nanoTime() + (delay * 1000000L);
+    updateTimer.setInitialDelay(delay);
+    updateTimer.restart();        // schedule the next single-shot tick
+  }
+
+/*
+  showWindows() method
+
+  Create all windows from a list of options, and start the shared timer.
+*/
+  static void showWindows(Vector<ShowDateTime1Options> optionList)
+  {
+    int i, k;                     // index variables
+    ShowDateTime1Options options; // options for one window
+    GraphicsDevice[] screens;     // all screens (monitors)
+
+    screens = GraphicsEnvironment.getLocalGraphicsEnvironment()
+      .getScreenDevices();
+    for (i = 0; i < optionList.size(); i ++)
+    {
+      options = optionList.get(i);
+      if (options.screen == ShowDateTime1Options.ALL_SCREENS)
+      {
+        for (k = 0; k < screens.length; k ++)
+          new ShowDateTime1Window(options, screens[k]
+            .getDefaultConfiguration());
+      }
+      else if (options.screen == ShowDateTime1Options.DEFAULT_SCREEN)
+        new ShowDateTime1Window(options, GraphicsEnvironment
+          .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+          .getDefaultConfiguration());
+      else if (options.screen <= screens.length)
+        new ShowDateTime1Window(options, screens[options.screen - 1]
+          .getDefaultConfiguration());
+      else
+      {
+        System.err.println("Screen number " + options.screen
+          + " not found; this system has " + screens.length + " screen(s).");
+        System.exit(-1);
+      }
+    }
+
+    /* Let the graphical interface run the application now. */
+
+    updateTimer = new javax.swing.Timer(ShowDateTime1.TIMER_DELAY,
+      new ShowDateTime1User(null)); // timer belongs to no window
+    updateTimer.setRepeats(false); // each tick schedules the following tick
+    scheduleTick(ShowDateTime1Clock.millis()); // wait until date/time changes
+
+  } // end of showWindows() method
+
+/*
+  startLater() method
+
+  Called once after the first paint and once after all windows have been
+  created, in either order and from different threads.  The second call
+  starts the work that was waiting (see the run() method).
+*/
+  static synchronized void startLater()
+  {
+    if ((++ startupSteps == 2) && (windows.size() > 0))
+      SwingUtilities.invokeLater(windows.get(0));
+
+  } // end of startLater() method
+
+/*
+  updateAll() method
+
+  Called by our shared timer to update every clock in every window.
+*/
+  static void updateAll()
+  {
+    boolean changed;              // true if any clock has changed
+    int i, k;                     // index variables
+    ShowDateTime1Metrics metrics; // statistics, or null if not wanted
+    long now;                     // current time in milliseconds
+    long start;                   // starting time of tick, in nanoseconds
+    long textNanos;               // nanoseconds spent in setText()
+
+    metrics = ShowDateTime1Metrics.active;
+    start = (metrics == null) ? 0 : System.nanoTime();
+    changed = false;
+    textNanos = 0;
+    now = ShowDateTime1Clock.millis(); // one clock reading for all
+    for (i = 0; i < windows.size(); i ++)
+    {
+      ShowDateTime1Window window = windows.get(i);
+      if (window.suspended || (window.clockLabels == null)
+        || (window.remote != null)) // updated when seen, for every frame, or
+        continue;                 // ... by time server
+      for (k = 0; k < window.clockTexts.length; k ++)
+      {
+        if (window.clockTexts[k].update(now)) // has date or time changed?
+        {
+          changed = true;
+          if (metrics == null)    // the usual case: no statistics
+            window.clockLabels[k].setText(window.clockTexts[k].getText());
+          else
+          {
+            long before = System.nanoTime();
+            window.clockLabels[k].setText(window.clockTexts[k].getText());
+            textNanos += System.nanoTime() - before;
+            if (window.clockTexts[k].skipped) // whole unit never shown
+              synchronized (metrics) { metrics.missedUpdates ++; }
+          }
+        }
+      }
+    }
+    if (metrics != null)          // lateness is from boundary, not timer
+    {
+      synchronized (metrics)      // shared with readers
+      {
+        metrics.record(ShowDateTime1Metrics.LATENESS, (start - plannedTick
+          + (ShowDateTime1Ticker.TICK_MARGIN * 1000000L)));
+        metrics.record(ShowDateTime1Metrics.FORMAT, (System.nanoTime()
+          - start - textNanos));
+        if (changed)
+          metrics.record(ShowDateTime1Metrics.SET_TEXT, textNanos);
+        else
+          metrics.wastedTicks ++;
+        metrics.ticks ++;
+      }
+    }
+    scheduleTick(now);
+  }
+
+/*
+  userButton() method
+
+  This method is called by our action listener actionPerformed() to process
+  buttons, in the context of one window.
+*/
+  void userButton(ActionEvent event)
+  {
+    Object source = event.getSource(); // where the event came from
+    if (source == menuCancel)     // "Cancel" item on mouse pop-up menu
+    {
+      /* The pop-up menu will disappear by itself if we ignore this event. */
+    }
+    else if (source == menuExit)  // "Exit" item on mouse pop-up menu
+    {
+      System.exit(0);             // always exit with zero status from GUI
+    }
+    else                          // fault in program logic, not by user
+    {
+      System.err.println("Error in userButton(): unknown ActionEvent: "
+        + event);                 // should never happen, so write on console
+    }
+  } // end of userButton() method
+
+/*
+  windowClosed() method
+
+  Forget about a window that has been closed, and exit after the last one.
+*/
+  void windowClosed()
+  {
+    if (reshaping)                // only disposed to change borders
+    {
+      reshaping = false;
+      return;
+    }
+    windows.remove(this);
+    if (config != null)           // stop watching options file
+      ShowDateTime1Config.configs.remove(config);
+    if (clockCanvases != null)    // stop drawing this window
+      ShowDateTime1Canvas.canvases.removeAll(Arrays.asList(clockCanvases));
+    if (windows.size() == 0)
+      System.exit(0);             // always exit with zero status from GUI
+    if (updateTimer != null)      // other windows may be hidden
+      scheduleTick(ShowDateTime1Clock.millis());
+  }
+
+} // end of ShowDateTime1Window class
 
 /* Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL. */
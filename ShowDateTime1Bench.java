@@ -0,0 +1,701 @@
+/*
+  Show Date Time #1 - Benchmarks
+  Java class name: ShowDateTime1Bench
+  Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL.
+
+  This is a benchmark suite for the work done on each clock tick in
+  ShowDateTime1.  It's a separate source file, and isn't part of
+  ShowDateTime1.jar.  Compile it with the program, and run it from the
+  command line with:
+
+      javac  ShowDateTime1.java  ShowDateTime1Bench.java
+      java  ShowDateTime1Bench  [options]  [pattern ...]
+
+  There are no other files to build or download.  Options are:
+
+      -d# = soak test for # days of virtual time instead (default 400)
+      -m# = number of measured iterations (default 5)
+      -s# = milliseconds between simulated clock ticks (default 100)
+      -t# = milliseconds for each iteration (default 1000)
+      -w# = number of warm-up iterations (default 3)
+      -z# = time zone for soak test (default is the local time zone)
+
+  Each benchmark is warmed up, then measured for several iterations, like the
+  JMH harness.  We report throughput (operations per second, mean and standard
+  deviation over iterations), latency (percentiles from timing single
+  operations, less the cost of reading the timer), allocation (bytes per
+  operation and megabytes per second), and garbage collection (collections and
+  milliseconds during measured iterations).  Allocation is only measured on
+  Java virtual machines with com.sun.management.ThreadMXBean, which we look
+  for when we start, so the benchmarks still run on others.  This isn't JMH:
+  everything runs in one JVM, without forks, and results are kept from the
+  optimizer by adding them to a checksum.  Compare runs on the same machine.
+  For JMH results, with forks, blackholes, and the GC profiler, use the Maven
+  build in the "jmh" directory (see ShowDateTime1Jmh.java there).
+
+  Benchmarks for each date format pattern:
+
+      format-old = SimpleDateFormat.format() and String.equals() on each tick,
+          as in ShowDateTime1 before the format was compiled
+      format-new = ShowDateTime1Text.update(), and getText() if changed
+      update-new = ShowDateTime1Text.update() only
+      equals-same = String.equals() with the same text (no change)
+      equals-diff = String.equals() with the last character different
+
+  Each operation is one tick.  The bytes per operation for format-new are the
+  String that getText() makes when the text changes, which every label needs:
+  one change in ten ticks for seconds at the default 100 ms, so the average
+  is a tenth of one String.  Fields rewritten in place allocate nothing, and
+  update-new, without getText(), should show 0 B/op once warmed up.
+
+  And once, for the default pattern's text (HTML) or the same text as one line
+  (plain), with the text changing on every operation:
+
+      label-plain, label-html = JLabel.setText() and layout
+      label-ours = ShowDateTime1Label.setText() and layout
+      paint-plain, paint-html, paint-ours = same, then paint to an image
+
+  Components are never shown, so we run headless unless java.awt.headless is
+  given.  Swing benchmarks run on the event dispatch thread.
+
+  The -d option runs a soak test instead of the benchmarks.  For each pattern,
+  a stepping ShowDateTime1Clock starts at midnight on 1 January 2012 (a leap
+  year) and jumps from each change in the text straight to the next, the way
+  the shared timer in ShowDateTime1Window would wait for it, for the given
+  number of days: every second, minute, midnight, and daylight saving change
+  in that time, millions of ticks in seconds.  We report ticks per second,
+  bytes allocated per change, ticks that changed nothing (wasted) or that
+  skipped a whole unit (missed), and the heap in use before and after, after
+  garbage collection, to show leaks.  A second pass checks the text against
+  SimpleDateFormat on every tick near midnight or a time zone change, and on
+  a sample of other ticks.  For example:
+
+      java  ShowDateTime1Bench  -d400 -zEurope/London
+
+  Apache License or GNU General Public License
+  --------------------------------------------
+  ShowDateTime1Bench is free software and has been released under the terms
+  and conditions of the Apache License (version 2.0 or later) and/or the GNU
+  General Public License (GPL, version 2 or later).  This program is
+  distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+  PARTICULAR PURPOSE.  See the license(s) for more details.  You should have
+  received a copy of the licenses along with this program.  If not, see the
+  http://www.apache.org/licenses/ and http://www.gnu.org/licenses/ web pages.
+*/
+
+import java.awt.*;                // older Java GUI support
+import java.awt.image.*;          // images for paint benchmarks
+import java.text.*;               // date formats
+import java.util.*;               // lists, time zones, vectors
+import javax.swing.*;             // newer Java GUI support
+
+@SuppressWarnings("auxiliaryclass") // program classes in ShowDateTime1.java
+public class ShowDateTime1Bench implements Runnable
+{
+  /* constants */
+
+  static final int BATCH_SMALL = 4096; // operations per batch: fast benchmarks
+  static final int BATCH_SWING = 16; // operations per batch: Swing benchmarks
+  static final String[] DEFAULT_PATTERNS = {
+    "'<html>'EEE d MMM yyyy'<br>'h:mm:ss a z'</html>'", // program default
+    "HH:mm:ss",                   // simple digital clock
+    "EEEE, d MMMM yyyy",          // date only, long names
+    "yyyy-MM-dd'T'HH:mm:ssXXX" }; // ISO 8601 with offset
+  static final int EQUALS_DIFF = 4; // benchmark numbers, see NAMES
+  static final int EQUALS_SAME = 3;
+  static final int FORMAT_NEW = 1;
+  static final int FORMAT_OLD = 0;
+  static final int LABEL_HTML = 6;
+  static final int LABEL_OURS = 7;
+  static final int LABEL_PLAIN = 5;
+  static final String[] NAMES = { "format-old", "format-new", "update-new",
+    "equals-same", "equals-diff", "label-plain", "label-html", "label-ours",
+    "paint-plain", "paint-html", "paint-ours" };
+  static final int PAINT_HTML = 9;
+  static final int PAINT_OURS = 10;
+  static final int PAINT_PLAIN = 8;
+  static final int SAMPLE_COUNT = 20000; // single operations timed for latency
+  static final int SOAK_SAMPLE = 97; // check one tick in this many, at least
+  static final long START_TIME = 1269361800000L; // 23 March 2010, 16:30 UTC
+  static final int TEXT_COUNT = 60; // different strings for text benchmarks
+  static final int UPDATE_NEW = 2;
+
+  /* class variables */
+
+  static java.lang.invoke.MethodHandle allocatedHandle; // or null if none
+  static long checksum;           // results of all operations, so work is used
+  static String[] copies;         // same text as <strings>, different objects
+  static SimpleDateFormat format; // formatter for current pattern
+  static Image image;             // off-screen image for paint benchmarks
+  static JLabel label;            // label for Swing benchmarks
+  static long measureMillis;      // milliseconds for each iteration
+  static int measureCount;        // number of measured iterations
+  static JPanel panel;            // parent of <label>, for layout
+  static String previous;         // previous text for format-old
+  static String[] strings;        // text for equals and Swing benchmarks
+  static int soakDays;            // days of virtual time, or 0 for benchmarks
+  static TimeZone soakZone;       // time zone for soak test
+  static Object compiled;         // ShowDateTime1Text for current pattern
+  static long tickStep;           // milliseconds between simulated ticks
+  static long time;               // simulated clock time in milliseconds
+  static int warmCount;           // number of warm-up iterations
+
+  /* instance variables, for running on the event dispatch thread */
+
+  long allocated;                 // bytes allocated by last run, or -1
+  int bench;                      // which benchmark to run
+  long[] samples;                 // latency samples, or null for throughput
+  long result;                    // number of operations done
+
+/*
+  main() method
+*/
+  public static void main(String[] args)
+  {
+    int i;                        // index variable
+    Vector<String> patterns;      // date format patterns to measure
+    String word;                  // one parameter from command line
+
+    if (System.getProperty("java.awt.headless") == null)
+      System.setProperty("java.awt.headless", "true"); // before any GUI class
+    measureCount = 5;             // default options
+    measureMillis = 1000;
+    soakDays = 0;
+    soakZone = TimeZone.getDefault();
+    tickStep = 100;
+    warmCount = 3;
+    patterns = new Vector<String>();
+    allocatedHandle = findAllocated(); // null if JVM doesn't count bytes
+    for (i = 0; i < args.length; i ++)
+    {
+      word = args[i];
+      try
+      {
+        if (word.equals("-d")) soakDays = 400;
+        else if (word.startsWith("-d")) soakDays = Integer.parseInt(word
+          .substring(2));
+        else if (word.startsWith("-m")) measureCount = Integer.parseInt(word
+          .substring(2));
+        else if (word.startsWith("-s")) tickStep = Integer.parseInt(word
+          .substring(2));
+        else if (word.startsWith("-t")) measureMillis = Integer.parseInt(word
+          .substring(2));
+        else if (word.startsWith("-w")) warmCount = Integer.parseInt(word
+          .substring(2));
+        else if (word.startsWith("-z")) soakZone = TimeZone.getTimeZone(word
+          .substring(2));
+        else
+          patterns.add(word);     // anything else is a date format
+      }
+      catch (NumberFormatException nfe)
+      {
+        System.err.println("Invalid option: " + word);
+        System.exit(-1);
+      }
+    }
+    if (patterns.size() == 0)
+      patterns.addAll(Arrays.asList(DEFAULT_PATTERNS));
+    if ((measureCount < 1) || (measureMillis < 1) || (soakDays < 0)
+      || (tickStep < 1) || (warmCount < 0))
+    {
+      System.err.println("Counts and times must be positive.");
+      System.exit(-1);
+    }
+    if (soakDays > 0)             // soak test instead of benchmarks
+    {
+      System.out.println("ShowDateTime1Bench: Java " + System.getProperty(
+        "java.version") + ", soak test for " + soakDays + " days in "
+        + soakZone.getID());
+      for (i = 0; i < patterns.size(); i ++)
+        soak(patterns.get(i));
+      System.exit(0);
+    }
+
+    System.out.println("ShowDateTime1Bench: Java " + System.getProperty(
+      "java.version") + ", " + System.getProperty("os.name") + ", "
+      + Runtime.getRuntime().availableProcessors() + " processors, headless "
+      + GraphicsEnvironment.isHeadless());
+    System.out.println(warmCount + " warm-up and " + measureCount
+      + " measured iterations of " + measureMillis + " ms, ticks " + tickStep
+      + " ms apart");
+    System.out.println();
+    System.out.println("benchmark           ops/s +/-        sd     p50 ns"
+      + "     p99 ns   p99.9 ns     B/op     MB/s  GCs  GC ms");
+
+    for (i = 0; i < patterns.size(); i ++)
+    {
+      setPattern(patterns.get(i));
+      System.out.println();
+      System.out.println(patterns.get(i) + (((ShowDateTime1Text) compiled)
+        .isCompiled() ? "" : "  (not compiled)"));
+      measure(FORMAT_OLD);
+      measure(FORMAT_NEW);
+      measure(UPDATE_NEW);
+      measure(EQUALS_SAME);
+      measure(EQUALS_DIFF);
+    }
+
+    setPattern(DEFAULT_PATTERNS[0]); // HTML text for Swing benchmarks
+    System.out.println();
+    System.out.println("Swing, with text from " + DEFAULT_PATTERNS[0]);
+    for (i = LABEL_PLAIN; i <= PAINT_OURS; i ++)
+      measure(i);
+    System.exit(0);               // Swing may have started other threads
+
+  } // end of main() method
+
+/*
+  allocatedBytes() method
+
+  Return the number of bytes allocated by the current thread, or -1 if this
+  Java virtual machine doesn't tell us.
+*/
+  static long allocatedBytes()
+  {
+    if (allocatedHandle == null)  // not available on this JVM
+      return(-1);
+    try { return((long) allocatedHandle.invokeExact(Thread.currentThread()
+      .getId())); }
+    catch (Throwable t) { return(-1); } // can't happen after findAllocated()
+  }
+
+/*
+  collections() method
+
+  Return the total number of garbage collections [0] and their total time in
+  milliseconds [1] so far.
+*/
+  static long[] collections()
+  {
+    int i;                        // index variable
+    java.util.List<java.lang.management.GarbageCollectorMXBean> beans;
+                                  // all garbage collectors
+    long[] result;                // our totals
+
+    beans = java.lang.management.ManagementFactory
+      .getGarbageCollectorMXBeans();
+    result = new long[2];
+    for (i = 0; i < beans.size(); i ++)
+    {
+      java.lang.management.GarbageCollectorMXBean bean = beans.get(i);
+      result[0] += Math.max(0, bean.getCollectionCount());
+      result[1] += Math.max(0, bean.getCollectionTime());
+    }
+    return(result);
+  }
+
+/*
+  execute() method
+
+  Run one benchmark for the given time (or for all latency samples), on the
+  event dispatch thread for Swing benchmarks.  Return the object with results.
+*/
+  static ShowDateTime1Bench execute(int bench, long[] samples)
+  {
+    ShowDateTime1Bench job = new ShowDateTime1Bench();
+    job.bench = bench;
+    job.samples = samples;
+    if (bench < LABEL_PLAIN)      // no GUI, so use this thread
+      job.run();
+    else
+    {
+      try { SwingUtilities.invokeAndWait(job); }
+      catch (Exception e) { throw new RuntimeException(e); }
+    }
+    return(job);
+  }
+
+/*
+  findAllocated() method
+
+  Return a method handle for getThreadAllocatedBytes(long) in the JVM's
+  thread bean, or null if it doesn't have one.  That method is in the
+  com.sun.management package, which not every JVM provides, so we look for it
+  instead of naming it in our code.  A method handle doesn't box its long
+  argument or result, so it adds nothing to what we measure.
+*/
+  static java.lang.invoke.MethodHandle findAllocated()
+  {
+    Object bean;                  // platform thread bean
+    Class<?> type;                // vendor interface with byte counts
+
+    try
+    {
+      type = Class.forName("com.sun.management.ThreadMXBean");
+      bean = java.lang.management.ManagementFactory.getThreadMXBean();
+      if (type.isInstance(bean) == false)
+        return(null);
+      return(java.lang.invoke.MethodHandles.publicLookup().findVirtual(type,
+        "getThreadAllocatedBytes", java.lang.invoke.MethodType.methodType(
+        long.class, long.class)).bindTo(bean));
+    }
+    catch (Exception e)           // not found or not allowed: don't measure
+    {
+      return(null);
+    }
+  }
+
+/*
+  measure() method
+
+  Warm up, measure, and print results for one benchmark.
+*/
+  static void measure(int bench)
+  {
+    long bytes;                   // total bytes allocated, or -1
+    long[] gcAfter, gcBefore;     // garbage collection counts and times
+    int i;                        // index variable
+    long ops;                     // total operations
+    double[] rates;               // operations per second for each iteration
+    long[] samples;               // latency samples in nanoseconds
+    double mean, deviation;       // statistics for <rates>
+
+    setup(bench);
+    for (i = 0; i < warmCount; i ++)
+      execute(bench, null);
+
+    bytes = ops = 0;
+    rates = new double[measureCount];
+    gcBefore = collections();
+    for (i = 0; i < measureCount; i ++)
+    {
+      long start = System.nanoTime();
+      ShowDateTime1Bench job = execute(bench, null);
+      rates[i] = job.result * 1e9 / Math.max(1, (System.nanoTime() - start));
+      ops += job.result;
+      bytes = ((bytes < 0) || (job.allocated < 0)) ? -1 : (bytes
+        + job.allocated);
+    }
+    gcAfter = collections();
+
+    mean = deviation = 0.0;
+    for (i = 0; i < measureCount; i ++)
+      mean += rates[i] / measureCount;
+    for (i = 0; i < measureCount; i ++)
+      deviation += (rates[i] - mean) * (rates[i] - mean) / measureCount;
+    deviation = Math.sqrt(deviation);
+
+    samples = new long[SAMPLE_COUNT];
+    execute(bench, samples);      // time single operations
+    Arrays.sort(samples);
+
+    System.out.println(pad(NAMES[bench], -12) + pad(number(mean), 13) + " +/-"
+      + pad(number(deviation), 10) + pad(number(samples[SAMPLE_COUNT / 2]),
+      11) + pad(number(samples[SAMPLE_COUNT * 99 / 100]), 11)
+      + pad(number(samples[SAMPLE_COUNT * 999 / 1000]), 11)
+      + ((bytes < 0) ? "    unknown        -" : (pad(number((double) bytes
+      / ops), 9) + pad(number(bytes * mean / ops / 1048576.0), 9)))
+      + pad(number(gcAfter[0] - gcBefore[0]), 5)
+      + pad(number(gcAfter[1] - gcBefore[1]), 7));
+  }
+
+/*
+  number() method
+
+  Format a number for our table: no decimals, unless it is small.
+*/
+  static String number(double value)
+  {
+    return(new DecimalFormat((Math.abs(value) < 10) ? "0.##" : "#,##0")
+      .format(value));
+  }
+
+/*
+  operate() method
+
+  Do some operations for one benchmark.  The simulated clock advances before
+  each operation.
+*/
+  static void operate(int bench, int count)
+  {
+    int i;                        // index variable
+    int index;                    // which string to use
+    String newText;               // old path: current text
+    ShowDateTime1Text text;       // new path: compiled format
+
+    text = (ShowDateTime1Text) compiled; // named only here, not in a field
+    for (i = 0; i < count; i ++)
+    {
+      time += tickStep;           // advance the simulated clock
+      index = (int) ((time / tickStep) % TEXT_COUNT);
+      switch (bench)
+      {
+        case FORMAT_OLD:          // as in ShowDateTime1 before compiling
+          newText = format.format(new Date(time));
+          if (newText.equals(previous) == false)
+          {
+            checksum += newText.length();
+            previous = newText;
+          }
+          break;
+
+        case FORMAT_NEW:
+          if (text.update(time))
+            checksum += text.getText().length();
+          break;
+
+        case UPDATE_NEW:          // the tick itself, without a String
+          if (text.update(time))
+            checksum += text.length;
+          break;
+
+        case EQUALS_SAME:
+          if (strings[index].equals(copies[index]))
+            checksum ++;
+          break;
+
+        case EQUALS_DIFF:
+          if (strings[index].equals(copies[(index + 1) % TEXT_COUNT]))
+            checksum ++;
+          break;
+
+        default:                  // Swing benchmarks
+          label.setText(strings[index]);
+          panel.validate();       // layout, if anything is invalid
+          checksum += label.getPreferredSize().width;
+          if (bench >= PAINT_PLAIN)
+          {
+            Graphics graphics = image.getGraphics();
+            panel.paint(graphics);
+            graphics.dispose();
+          }
+          break;
+      }
+    }
+  }
+
+/*
+  pad() method
+
+  Pad a string with spaces to the given width: on the left if the width is
+  positive, or on the right if negative.
+*/
+  static String pad(String text, int width)
+  {
+    StringBuffer buffer = new StringBuffer(text);
+    while (buffer.length() < Math.abs(width))
+    {
+      if (width > 0) buffer.insert(0, ' ');
+      else buffer.append(' ');
+    }
+    return(buffer.toString());
+  }
+
+/*
+  run() method
+
+  Run one benchmark, either in batches until our time is up, or one operation
+  at a time for latency samples.  Called on the event dispatch thread for Swing
+  benchmarks, which is why this is an instance method.
+*/
+  public void run()
+  {
+    int batch;                    // operations per batch
+    long empty;                   // nanoseconds to read timer twice
+    int i;                        // index variable
+    long limit;                   // when to stop, from System.nanoTime()
+    long start;                   // starting time of one operation
+
+    if (samples != null)          // time single operations
+    {
+      empty = Long.MAX_VALUE;
+      for (i = 0; i < 1000; i ++) // cost of timing nothing
+      {
+        start = System.nanoTime();
+        empty = Math.min(empty, (System.nanoTime() - start));
+      }
+      for (i = 0; i < samples.length; i ++)
+      {
+        start = System.nanoTime();
+        operate(bench, 1);
+        samples[i] = Math.max(0, (System.nanoTime() - start - empty));
+      }
+      result = samples.length;
+      return;
+    }
+
+    allocated = allocatedBytes(); // this thread, before
+    batch = (bench < LABEL_PLAIN) ? BATCH_SMALL : BATCH_SWING;
+    limit = System.nanoTime() + (measureMillis * 1000000);
+    result = 0;
+    do
+    {
+      operate(bench, batch);
+      result += batch;
+    } while (System.nanoTime() < limit);
+    allocated = (allocated < 0) ? -1 : (allocatedBytes() - allocated);
+  }
+
+/*
+  soak() method
+
+  Run the soak test for one pattern, and print the results.
+*/
+  static void soak(String pattern)
+  {
+    long bytes;                   // bytes allocated during first pass, or -1
+    Calendar calendar;            // for start and end times
+    long changes;                 // ticks that changed the text
+    long checked;                 // ticks checked with SimpleDateFormat
+    ShowDateTime1Clock clock;     // our virtual clock
+    int day;                      // day of year on last tick
+    long end;                     // end of soak test, in milliseconds
+    long heapAfter, heapBefore;   // bytes in use after garbage collection
+    long missed;                  // ticks where a whole unit was never shown
+    long nanos;                   // duration of first pass
+    long now;                     // virtual time of one tick
+    int offset;                   // time zone offset on last tick
+    int pass;                     // first pass measures, second checks
+    long start;                   // start of soak test, in milliseconds
+    ShowDateTime1Text text;       // compiled format being tested
+    long ticks;                   // number of ticks
+    long wrong;                   // ticks with text different from expected
+
+    format = new SimpleDateFormat(pattern);
+    format.setTimeZone(soakZone);
+    calendar = Calendar.getInstance(soakZone);
+    calendar.clear();
+    calendar.set(2012, Calendar.JANUARY, 1); // midnight, leap year
+    start = calendar.getTimeInMillis();
+    calendar.add(Calendar.DATE, soakDays);
+    end = calendar.getTimeInMillis();
+
+    bytes = changes = checked = missed = nanos = ticks = wrong = 0;
+    heapAfter = heapBefore = 0;
+    text = null;                  // made new for each pass
+    for (pass = 0; pass < 2; pass ++)
+    {
+      text = new ShowDateTime1Text((SimpleDateFormat) format.clone());
+      clock = ShowDateTime1Clock.active = new ShowDateTime1Clock(start, 0);
+      if (pass == 0)              // measure throughput, allocation, memory
+      {
+        heapBefore = usedHeap();
+        bytes = allocatedBytes();
+        nanos = System.nanoTime();
+        while ((now = clock.read()) < end)
+        {
+          ticks ++;
+          if (text.update(now))   // same calls as the shared timer
+          {
+            changes ++;
+            checksum += text.getText().length();
+            if (text.skipped)
+              missed ++;
+          }
+          ShowDateTime1Clock.realDelay(now, text.nextDelay(now));
+        }
+        nanos = System.nanoTime() - nanos;
+        bytes = (bytes < 0) ? -1 : (allocatedBytes() - bytes);
+        heapAfter = usedHeap();
+      }
+      else                        // check text near changes, and a sample
+      {
+        day = -1;
+        offset = Integer.MIN_VALUE;
+        long count = 0;           // ticks in this pass
+        while ((now = clock.read()) < end)
+        {
+          text.update(now);
+          calendar.setTimeInMillis(now);
+          if ((calendar.get(Calendar.DAY_OF_YEAR) != day) || (soakZone
+            .getOffset(now) != offset) || ((count % SOAK_SAMPLE) == 0))
+          {
+            checked ++;
+            if (text.getText().equals(format.format(new Date(now))) == false)
+            {
+              if (wrong < 5)      // show a few examples
+                System.out.println("  wrong at " + now + ": \"" + text
+                  .getText() + "\" expected \"" + format.format(new Date(
+                  now)) + "\"");
+              wrong ++;
+            }
+          }
+          day = calendar.get(Calendar.DAY_OF_YEAR);
+          offset = soakZone.getOffset(now);
+          count ++;
+          ShowDateTime1Clock.realDelay(now, text.nextDelay(now));
+        }
+      }
+    }
+    ShowDateTime1Clock.active = null; // back to the system clock
+
+    System.out.println();
+    System.out.println(pattern + (text.isCompiled() ? "" : "  (not compiled)"));
+    System.out.println("  " + number(ticks) + " ticks in " + number(nanos
+      / 1e9) + " s = " + number(ticks * 1e9 / Math.max(1, nanos))
+      + " ticks/s, " + ((bytes < 0) ? "unknown" : number((double) bytes
+      / Math.max(1, changes))) + " B/change");
+    System.out.println("  " + number(changes) + " changes, " + number(ticks
+      - changes) + " wasted, " + number(missed) + " missed, " + number(wrong)
+      + " wrong of " + number(checked) + " checked");
+    System.out.println("  heap in use " + number(heapBefore / 1024.0)
+      + " KB before, " + number(heapAfter / 1024.0) + " KB after");
+  }
+
+/*
+  setPattern() method
+
+  Create the formatter, compiled text, and test strings for one pattern.
+*/
+  static void setPattern(String pattern)
+  {
+    int i;                        // index variable
+
+    format = new SimpleDateFormat(pattern);
+    compiled = new ShowDateTime1Text((SimpleDateFormat) format.clone());
+    copies = new String[TEXT_COUNT];
+    strings = new String[TEXT_COUNT];
+    for (i = 0; i < TEXT_COUNT; i ++) // one minute of text, a second apart
+    {
+      strings[i] = format.format(new Date(START_TIME + (i * 1000L)));
+      copies[i] = new String(strings[i].toCharArray()); // not the same object
+    }
+  }
+
+/*
+  setup() method
+
+  Prepare for one benchmark.
+*/
+  static void setup(int bench)
+  {
+    int i;                        // index variable
+
+    previous = null;
+    time = START_TIME;
+    if (bench < LABEL_PLAIN)      // nothing more for non-GUI benchmarks
+      return;
+
+    setPattern(DEFAULT_PATTERNS[0]); // default text, for HTML
+    if ((bench == LABEL_PLAIN) || (bench == PAINT_PLAIN))
+      for (i = 0; i < TEXT_COUNT; i ++) // same text on one line
+        strings[i] = ShowDateTime1Stream.plainText(strings[i]);
+    label = ((bench == LABEL_OURS) || (bench == PAINT_OURS))
+      ? new ShowDateTime1Label(strings[0], JLabel.CENTER)
+      : new JLabel(strings[0], JLabel.CENTER);
+    label.setFont(new Font("Dialog", Font.PLAIN, 36));
+    label.setOpaque(true);
+    panel = new JPanel(new BorderLayout());
+    panel.add(label, BorderLayout.CENTER);
+    panel.setSize(400, 150);      // default window size
+    panel.validate();
+    image = new java.awt.image.BufferedImage(400, 150,
+      java.awt.image.BufferedImage.TYPE_INT_RGB);
+  }
+
+/*
+  usedHeap() method
+
+  Return the number of bytes in use on the heap, after garbage collection.
+*/
+  static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return(runtime.totalMemory() - runtime.freeMemory());
+  }
+
+} // end of ShowDateTime1Bench class
+
+/* Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL. */
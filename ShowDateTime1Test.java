@@ -0,0 +1,1674 @@
+/*
+  Show Date Time #1 - Tests
+  Java class name: ShowDateTime1Test
+  Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL.
+
+  Checks for parts of ShowDateTime1 that have broken before, and that can be
+  run with no display.  There is no test framework: each check prints its
+  name and "ok" or what went wrong, and the exit status is the number of
+  checks that failed.  Compile and run with:
+
+      javac  ShowDateTime1.java  ShowDateTime1Test.java
+      java  -Djava.awt.headless=true  ShowDateTime1Test
+
+  Apache License or GNU General Public License
+  --------------------------------------------
+  ShowDateTime1Test is free software and has been released under the terms
+  and conditions of the Apache License (version 2.0 or later) and/or the GNU
+  General Public License (GPL, version 2 or later).  This program is
+  distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+  PARTICULAR PURPOSE.  See the license(s) for more details.  You should have
+  received a copy of the licenses along with this program.  If not, see the
+  http://www.apache.org/licenses/ and http://www.gnu.org/licenses/ web pages.
+*/
+
+import java.awt.*;                // colors and fonts
+import java.awt.image.*;          // images for drawing
+import java.io.*;                 // standard I/O
+import java.net.*;                // sockets for time server
+import java.nio.*;                // byte order of raw frames
+import java.text.*;               // date formats
+import java.util.*;               // time zones
+import javax.swing.*;             // label alignment
+
+@SuppressWarnings("auxiliaryclass") // helper classes live in ShowDateTime1.java
+public class ShowDateTime1Test
+{
+  /* class variables */
+
+  static int failures = 0;        // number of checks that failed
+
+/*
+  main() method
+
+  Run all checks, and exit with the number that failed.
+*/
+  public static void main(String[] args)
+  {
+    check("batch copies lines without epoch times", new Runnable() {
+      public void run() { batchLines(); } });
+    check("batch reads long lines from standard input", new Runnable() {
+      public void run() { batchLongLine(); } });
+    check("batch uses input blocks again", new Runnable() {
+      public void run() { batchBlocks(); } });
+    check("batch formats two files at once", new Runnable() {
+      public void run() { batchTwoFiles(); } });
+    check("cache counts bytes from image buffers", new Runnable() {
+      public void run() { cacheBytes(); } });
+    check("cache evicts least recently used images", new Runnable() {
+      public void run() { cacheEviction(); } });
+    check("cache keeps text images after resize", new Runnable() {
+      public void run() { cacheResize(); } });
+    check("canvas draws more than 32 different glyphs", new Runnable() {
+      public void run() { canvasGlyphs(); } });
+    check("fast virtual clock runs for hours", new Runnable() {
+      public void run() { clockHours(); } });
+    check("config applies newest options once", new Runnable() {
+      public void run() { configPending(); } });
+    check("config keeps options after bad file", new Runnable() {
+      public void run() { configBadFile(); } });
+    check("export writes changed rows, same as full", new Runnable() {
+      public void run() { exportRows(); } });
+    check("label repaints only changes, same as full", new Runnable() {
+      public void run() { labelRepaint(); } });
+    check("label makes new glyphs for a new font", new Runnable() {
+      public void run() { labelFont(); } });
+    check("metrics buckets and percentiles", new Runnable() {
+      public void run() { metricsReport(); } });
+    check("metrics from two threads", new Runnable() {
+      public void run() { metricsThreads(); } });
+    check("compiled format: every pattern letter", new Runnable() {
+      public void run() { formatLetters(); } });
+    check("compiled format: 12 and 24 hour clocks", new Runnable() {
+      public void run() { formatHours(); } });
+    check("compiled format: daylight saving changes", new Runnable() {
+      public void run() { formatDaylight(); } });
+    check("compiled format: new year and leap day", new Runnable() {
+      public void run() { formatYears(); } });
+    check("compiled format: HTML in literal text", new Runnable() {
+      public void run() { formatLiterals(); } });
+    check("compiled format: fallback to SimpleDateFormat", new Runnable() {
+      public void run() { formatFallback(); } });
+    check("ticker delays to next boundary", new Runnable() {
+      public void run() { tickerDelays(); } });
+    check("ticker follows a clock that jumps backwards", new Runnable() {
+      public void run() { tickerBackwards(); } });
+    check("ticker through daylight saving changes", new Runnable() {
+      public void run() { tickerDaylight(); } });
+    check("schedule countdown units", new Runnable() {
+      public void run() { scheduleCountdown(); } });
+    check("schedule rejects dates that don't exist", new Runnable() {
+      public void run() { scheduleDates(); } });
+    check("schedule groups events at the same time", new Runnable() {
+      public void run() { scheduleGroups(); } });
+    check("schedule skips past events", new Runnable() {
+      public void run() { schedulePast(); } });
+    check("schedule reads added lines and new files", new Runnable() {
+      public void run() { scheduleReread(); } });
+    check("server survives malformed query", new Runnable() {
+      public void run() { serverBadQuery(); } });
+
+    System.out.println((failures == 0) ? "All checks passed."
+      : (failures + " check(s) failed."));
+    System.exit(failures);
+
+  } // end of main() method
+
+/*
+  batchBlocks() method
+
+  Standard input is read in blocks that are used again after their chunks
+  are written.  Many chunks with one thread must still come out in order,
+  with the lines that cross each block boundary in one piece.
+*/
+  static void batchBlocks()
+  {
+    SimpleDateFormat format;      // reference formatter
+    int i;                        // index variable
+    StringBuffer input;           // more than five blocks of short lines
+    String output;                // result from formatter
+    StringBuffer wanted;          // expected result
+
+    format = new SimpleDateFormat("HH:mm:ss");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    input = new StringBuffer();
+    wanted = new StringBuffer();
+    for (i = 0; input.length() < (ShowDateTime1Batch.CHUNK_SIZE * 5.5); i ++)
+    {
+      long millis = 1700000000000L + (i * 1000L);
+      input.append(millis).append(" line ").append(i).append('\n');
+      wanted.append(format.format(new Date(millis))).append(" line ")
+        .append(i).append('\n');
+    }
+    try
+    {
+      output = batchStream(input.toString(), "HH:mm:ss", 1);
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+    for (i = 0; (i < output.length()) && (i < wanted.length())
+      && (output.charAt(i) == wanted.charAt(i)); i ++) ;
+    expect(output.length() == wanted.length(), "length " + output.length()
+      + " expected " + wanted.length());
+    expect(i == output.length(), "differs at " + i);
+  }
+
+/*
+  batchFormat() method
+
+  Format lines with the -i code, in UTC, and return the output.
+*/
+  static String batchFormat(String input, String pattern) throws IOException
+  {
+    File file;                    // temporary input file
+    ByteArrayOutputStream output; // formatted lines
+    SimpleDateFormat format;      // date format for epoch times
+
+    file = File.createTempFile("ShowDateTime1Test", ".log");
+    try
+    {
+      Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+        "UTF-8");
+      writer.write(input);
+      writer.close();
+      format = new SimpleDateFormat(pattern);
+      format.setTimeZone(TimeZone.getTimeZone("UTC"));
+      output = new ByteArrayOutputStream();
+      ShowDateTime1Batch.formatFile(file.getPath(), output, format, 2);
+      return(output.toString("UTF-8"));
+    }
+    finally { file.delete(); }
+  }
+
+/*
+  batchLines() method
+
+  Only 13-digit milliseconds and 10-digit seconds, followed by white space or
+  a comma, are epoch times.  ISO dates and other numbers used to be mangled.
+*/
+  static void batchLines()
+  {
+    String input;                 // lines that must not change
+    String output;                // result from formatter
+
+    try
+    {
+      input = "2024-01-15 12:00:00 ERROR boom\n200 OK\n"
+        + "17000000001234 too long\n1700000000000-dash\n";
+      output = batchFormat(input, "yyyy-MM-dd HH:mm:ss.SSS");
+      expect(output.equals(input), "changed: " + output);
+      output = batchFormat("1700000000123 ms\n1700000000,s\n",
+        "yyyy-MM-dd HH:mm:ss.SSS");
+      expect(output.equals("2023-11-14 22:13:20.123 ms\n"
+        + "2023-11-14 22:13:20.000,s\n"), "formatted: " + output);
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  batchLongLine() method
+
+  A line longer than a block from standard input is cut.  The rest of the
+  line used to start a new chunk, and an epoch time there was formatted.
+*/
+  static void batchLongLine()
+  {
+    String head;                  // start of long line, with epoch time
+    String input;                 // one long line, and one short line
+    String output;                // result from formatter
+    StringBuffer pad;             // fills long line to end of block
+
+    head = "1700000000123 head ";
+    pad = new StringBuffer();
+    while ((head.length() + pad.length()) < ShowDateTime1Batch.CHUNK_SIZE)
+      pad.append('x');
+    input = head + pad + "1700000000000 tail\n1700000001000 next\n";
+    try
+    {
+      output = batchStream(input, "HH:mm:ss.SSS", 2);
+      expect(output.equals("22:13:20.123 head " + pad + "1700000000000 tail"
+        + "\n22:13:21.000 next\n"), "stream: " + output.substring((output
+        .length() - 40), output.length()));
+      expect(output.equals(batchFormat(input, "HH:mm:ss.SSS")),
+        "stream and file differ");
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  batchStream() method
+
+  Format lines with the -i code from standard input, in UTC, and return the
+  output.
+*/
+  static String batchStream(String input, String pattern, int threads)
+    throws IOException
+  {
+    SimpleDateFormat format;      // date format for epoch times
+    InputStream original;         // our real standard input
+    ByteArrayOutputStream output; // formatted lines
+
+    format = new SimpleDateFormat(pattern);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    output = new ByteArrayOutputStream();
+    original = System.in;
+    System.setIn(new ByteArrayInputStream(input.getBytes("UTF-8")));
+    try
+    {
+      ShowDateTime1Batch.formatFile("", output, format, threads);
+    }
+    finally { System.setIn(original); }
+    return(output.toString("UTF-8"));
+  }
+
+/*
+  batchTwoFiles() method
+
+  formatFile() may be called by more than one thread, with different date
+  formats, at the same time.
+*/
+  static void batchTwoFiles()
+  {
+    final String[] results = new String[2]; // output from each thread
+    Thread[] threads;             // one formatting thread per file
+
+    final StringBuffer input = new StringBuffer();
+    for (int i = 0; i < 20000; i ++)
+      input.append(1700000000000L + (i * 1000L)).append(" line\n");
+    final String[] patterns = { "HH:mm:ss", "yyyy-MM-dd" };
+    threads = new Thread[2];
+    for (int i = 0; i < 2; i ++)
+    {
+      final int index = i;
+      threads[i] = new Thread(new Runnable() { public void run() {
+        try { results[index] = batchFormat(input.toString(),
+          patterns[index]); }
+        catch (IOException ioe) { results[index] = ioe.toString(); } } });
+      threads[i].start();
+    }
+    for (int i = 0; i < 2; i ++)
+    {
+      try { threads[i].join(); } catch (InterruptedException ie) { }
+    }
+    expect(results[0].startsWith("22:13:20 line\n22:13:21 line\n"),
+      "first file: " + results[0].substring(0, 40));
+    expect(results[1].startsWith("2023-11-14 line\n")
+      && (results[1].indexOf(':') < 0), "second file mixed formats");
+  }
+
+/*
+  cacheBytes() method
+
+  Image sizes are counted from their data buffers, not as 4 bytes per pixel.
+*/
+  static void cacheBytes()
+  {
+    int i;                        // index variable
+    long[] sizes;                 // bytes expected for each image type
+    int[] types;                  // BufferedImage types to check
+
+    types = new int[] { BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB,
+      BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_BINARY };
+    sizes = new long[] { 4 * 100 * 30, 3 * 100 * 30, 2 * 100 * 30, 100 * 30,
+      13 * 30 };                  // 100 bits in 13 bytes per row
+    for (i = 0; i < types.length; i ++)
+    {
+      long bytes = ShowDateTime1Cache.imageBytes(new BufferedImage(100, 30,
+        types[i]));
+      expect(bytes == sizes[i], "type " + types[i] + ": " + bytes + " bytes");
+    }
+  }
+
+/*
+  cacheEviction() method
+
+  The least recently used images are thrown away first, and only until the
+  total is under the limit.  The total must match the images that remain.
+*/
+  static void cacheEviction()
+  {
+    ShowDateTime1Cache cache;     // cache being checked
+    long hits, misses;            // counters before a paint
+    ShowDateTime1Label[] labels;  // labels with different text
+    long total;                   // bytes in images that remain
+
+    cache = new ShowDateTime1Cache(Long.MAX_VALUE);
+    labels = new ShowDateTime1Label[5];
+    for (int i = 0; i < labels.length; i ++)
+      labels[i] = (ShowDateTime1Label) labelSetup(new ShowDateTime1Label(
+        ("12:0" + i), JLabel.CENTER), new Font("Dialog", Font.PLAIN, 40));
+    for (int i = 0; i < 3; i ++)
+      cachePaint(cache, labels[i]);
+    expect((cache.images.size() == 3) && (cache.misses == 3), "images: "
+      + cache.images.size() + " misses: " + cache.misses);
+
+    cache.maxBytes = cache.bytes; // full: next new image evicts one
+    cachePaint(cache, labels[0]); // first image is now most recent
+    cachePaint(cache, labels[3]); // second image is least recent
+    expect((cache.hits == 1) && (cache.evictions == 1) && (cache.images
+      .size() == 3), "hits " + cache.hits + " evictions " + cache.evictions);
+    hits = cache.hits;
+    cachePaint(cache, labels[0]);
+    cachePaint(cache, labels[2]);
+    expect(cache.hits == (hits + 2), "newer images were evicted");
+    misses = cache.misses;
+    cachePaint(cache, labels[1]);
+    expect(cache.misses == (misses + 1), "oldest image was kept");
+
+    total = 0;
+    for (BufferedImage image : cache.images.values())
+      total += ShowDateTime1Cache.imageBytes(image);
+    expect((cache.bytes == total) && (cache.bytes <= cache.maxBytes),
+      "bytes " + cache.bytes + " total " + total + " limit "
+      + cache.maxBytes);
+
+    cache.maxBytes = 1;           // too small for anything
+    cachePaint(cache, labels[4]);
+    expect(cache.images.size() == 1, "newest image not kept alone: "
+      + cache.images.size());
+  }
+
+/*
+  cachePaint() method
+
+  Paint a label through a cache into a new image, and return the image.  The
+  cache is an Object so that no helper class appears in our method
+  signatures.
+*/
+  static BufferedImage cachePaint(Object cache, JLabel label)
+  {
+    BufferedImage image;          // where the label is painted
+
+    image = new BufferedImage(label.getWidth(), label.getHeight(),
+      BufferedImage.TYPE_INT_RGB);
+    Graphics2D gr = image.createGraphics();
+    expect(((ShowDateTime1Cache) cache).paint((ShowDateTime1Label) label, gr),
+      "not cached: " + label.getText());
+    gr.dispose();
+    return(image);
+  }
+
+/*
+  cacheResize() method
+
+  Resizing a label used to throw away every image.  An image of simple text
+  is only the block of lines, so it can be used again at any size.
+*/
+  static void cacheResize()
+  {
+    ShowDateTime1Cache cache;     // cache being checked
+    BufferedImage image;          // label painted from cached image
+    ShowDateTime1Label label;     // label that is resized
+
+    cache = new ShowDateTime1Cache(Long.MAX_VALUE);
+    label = (ShowDateTime1Label) labelSetup(new ShowDateTime1Label("12:00",
+      JLabel.CENTER), new Font("Dialog", Font.PLAIN, 40));
+    cachePaint(cache, label);
+    label.setSize(640, 480);      // window was resized
+    image = cachePaint(cache, label);
+    expect((cache.hits == 1) && (cache.misses == 1) && (cache.invalidations
+      == 0), "hits " + cache.hits + " misses " + cache.misses
+      + " invalidations " + cache.invalidations);
+    expect(samePixels(labelImage(label, null), image),
+      "cached image differs after resize");
+  }
+
+/*
+  canvasGlyphs() method
+
+  The -r canvas caches one glyph for each different character, in arrays that
+  start with room for 32.  Measuring a line used to index the old array after
+  findGlyph() had grown it, and the drawing thread died.
+*/
+  static void canvasGlyphs()
+  {
+    ShowDateTime1Canvas canvas;   // canvas with no window or clock
+    BufferedImage image;          // where the frame is drawn
+
+    canvas = new ShowDateTime1Canvas(null, null);
+    canvas.setBackground(Color.WHITE);
+    canvas.setFont(new Font("Dialog", Font.PLAIN, 12));
+    canvas.setForeground(Color.BLACK);
+    canvas.setSize(1000, 100);
+    canvas.count = 0;
+    for (char ch = 'A'; ch <= 'Z'; ch ++) // 26 + 26 = 52 different characters
+      canvas.display[canvas.count ++] = ch;
+    canvas.display[canvas.count ++] = '\n';
+    for (char ch = 'a'; ch <= 'z'; ch ++)
+      canvas.display[canvas.count ++] = ch;
+    image = new BufferedImage(1000, 100, BufferedImage.TYPE_INT_RGB);
+    Graphics2D gr = image.createGraphics();
+    canvas.paintFrame(gr);
+    canvas.paintFrame(gr);        // again, with all glyphs cached
+    gr.dispose();
+    expect(canvas.glyphCount == 52, "glyphs cached: " + canvas.glyphCount);
+  }
+
+/*
+  check() method
+
+  Run one check.  A check fails by throwing any exception or error.
+*/
+  static void check(String name, Runnable test)
+  {
+    try
+    {
+      test.run();
+      System.out.println(name + ": ok");
+    }
+    catch (Throwable t)
+    {
+      failures ++;
+      System.out.println(name + ": FAILED: " + t);
+    }
+  }
+
+/*
+  clockHours() method
+
+  At -z1000000, nanoseconds times the speed used to overflow a long after
+  about 2.5 hours of real time, and the virtual clock jumped backwards.
+*/
+  static void clockHours()
+  {
+    long actual;                  // virtual time read from clock
+    ShowDateTime1Clock clock;     // virtual clock at highest speed
+    long expected;                // virtual time after three real hours
+    long hours;                   // real milliseconds that have passed
+
+    hours = 3 * 3600000L;
+    clock = new ShowDateTime1Clock(0, 1000000);
+    clock.anchorNanos -= hours * 1000000; // pretend we started long ago
+    expected = hours * 1000000;
+    actual = clock.read();
+    expect((actual >= expected) && (actual < (expected + 60000000000L)),
+      "virtual time: " + actual + " expected: " + expected);
+  }
+
+/*
+  configBadFile() method
+
+  An options file with errors, or one that can't be read, is reported and
+  ignored, and the window keeps the options it has.
+*/
+  static void configBadFile()
+  {
+    final Vector<Object> applied = new Vector<Object>();
+                                  // options given to window, in order
+    String[] bad;                 // files with errors
+    ShowDateTime1Config config;   // config being checked
+    File file;                    // options file
+    int i;                        // index variable
+
+    bad = new String[] { "-s30\n-q/etc/hosts\n", "-s30\n-pblue\n", "-s\n",
+      "-s30\nnot an option\n", null }; // null: no file
+    try
+    {
+      file = File.createTempFile("ShowDateTime1Test", ".txt");
+      try
+      {
+        writeText(file, "-s20\n", false);
+        config = (ShowDateTime1Config) configOpen(file, applied);
+        config.reload();
+        configFlush();
+        for (i = 0; i < bad.length; i ++)
+        {
+          if (bad[i] == null)
+            file.delete();
+          else
+            writeText(file, bad[i], false);
+          config.reload();
+          configFlush();
+          expect((applied.size() == 1) && (config.pending == null),
+            "options changed by bad file: " + bad[i]);
+        }
+        writeText(file, "-s40\n", false);
+        config.reload();
+        configFlush();
+        expect((applied.size() == 2) && (((ShowDateTime1Options) applied
+          .get(1)).fontSize == 40), "good file after bad: " + applied);
+      }
+      finally { file.delete(); }
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  configFlush() method
+
+  Wait until the event dispatch thread has run everything given to it so far.
+*/
+  static void configFlush()
+  {
+    try
+    {
+      SwingUtilities.invokeAndWait(new Runnable() { public void run() { } });
+    }
+    catch (Exception e)           // interrupted, or failed on that thread
+    {
+      throw new IllegalStateException(e.toString());
+    }
+  }
+
+/*
+  configOpen() method
+
+  Create a config for an options file, with no window, that saves the
+  options it would apply in a list.  The return type is Object so that no
+  helper class appears in our method signatures.
+*/
+  static Object configOpen(File file, final Vector<Object> applied)
+  {
+    ShowDateTime1Options base;    // command-line options
+
+    base = new ShowDateTime1Options();
+    base.configFile = file.getPath();
+    return(new ShowDateTime1Config(null, base) {
+      void applyOptions(ShowDateTime1Options options) {
+        applied.add(options); } });
+  }
+
+/*
+  configPending() method
+
+  Editors often write a file more than once in a row.  Options that are read
+  before the window has taken the previous ones replace them, so the window
+  gets only the newest options, and only once.
+*/
+  static void configPending()
+  {
+    final Vector<Object> applied = new Vector<Object>();
+                                  // options given to window, in order
+    final java.util.concurrent.CountDownLatch busy
+      = new java.util.concurrent.CountDownLatch(1);
+                                  // holds event dispatch thread
+    ShowDateTime1Config config;   // config being checked
+    File file;                    // options file
+
+    try
+    {
+      file = File.createTempFile("ShowDateTime1Test", ".txt");
+      try
+      {
+        writeText(file, "-s20\n", false);
+        config = (ShowDateTime1Config) configOpen(file, applied);
+        SwingUtilities.invokeLater(new Runnable() { public void run() {
+          try { busy.await(); } catch (InterruptedException ie) { } } });
+        config.reload();
+        writeText(file, "# saved again\n-s30\n-p(1,2,3)\n", false);
+        config.reload();
+        expect((config.pending != null) && (config.pending.fontSize == 30),
+          "newer options not pending");
+        busy.countDown();         // let window take the options
+        configFlush();
+        expect(applied.size() == 1, "options applied " + applied.size()
+          + " times");
+        ShowDateTime1Options options = (ShowDateTime1Options) applied.get(0);
+        expect((options.fontSize == 30) && (options.panelColor == 0x010203),
+          "applied older options: -s" + options.fontSize);
+        expect(config.pending == null, "options still pending");
+
+        writeText(file, "-s40\n", false); // a later change is applied too
+        config.reload();
+        configFlush();
+        expect((applied.size() == 2) && (((ShowDateTime1Options) applied
+          .get(1)).fontSize == 40), "later change: " + applied.size());
+      }
+      finally
+      {
+        busy.countDown();         // even if a check failed first
+        file.delete();
+      }
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  expect() method
+
+  Fail if a condition isn't true.
+*/
+  static void expect(boolean condition, String message)
+  {
+    if (condition == false)
+      throw new IllegalStateException(message);
+  }
+
+/*
+  exportCompare() method
+
+  Write frames for a series of text to a raw file with the given extension,
+  which is first filled with more bytes than one frame.  The file must then
+  be exactly one frame, equal to the last text painted in full.
+*/
+  static void exportCompare(String extension) throws IOException
+  {
+    byte[] bytes;                 // contents of raw file
+    int bytesPerPixel;            // 3 for RGB, 4 for ARGB
+    ShowDateTime1Export export;   // writes changed rows only
+    File file;                    // raw output file
+    ShowDateTime1Export fresh;    // paints last text in full
+    int i;                        // index variable
+    ShowDateTime1Options options; // options for -v
+    String[] texts;               // text for each frame
+
+    texts = new String[] { "12:00:00", "<html>Tue 14 Nov<br>13:00:00</html>",
+      "12:00:01", "12:00:11", "12:59:58", "12:59:59" }; // last: right only
+    bytesPerPixel = extension.equals(".rgb") ? 3 : 4;
+    file = File.createTempFile("ShowDateTime1Test", extension);
+    try
+    {
+      OutputStream stream = new FileOutputStream(file);
+      stream.write(new byte[200000]); // old, larger frame
+      stream.close();
+      options = new ShowDateTime1Options();
+      options.exportFile = file.getPath();
+      options.fontName = "Dialog";
+      options.fontSize = 40;
+      options.panelColor = 0xFFFFFF;
+      options.textColor = 0x804020; // every channel different
+      options.windowHeight = 120;
+      options.windowWidth = 320;
+      export = new ShowDateTime1Export(options);
+      for (i = 0; i < texts.length; i ++)
+      {
+        export.label.setText(texts[i]);
+        export.writeFrame();
+      }
+      expect(file.length() == (bytesPerPixel * 320 * 120), extension
+        + " file has " + file.length() + " bytes");
+
+      options.exportFile = "unused.png"; // no file, only an image
+      fresh = new ShowDateTime1Export(options);
+      fresh.label.setText(texts[texts.length - 1]);
+      fresh.paintFrame();
+      bytes = new byte[(int) file.length()];
+      DataInputStream input = new DataInputStream(new FileInputStream(file));
+      input.readFully(bytes);
+      input.close();
+      ByteBuffer buffer = ByteBuffer.wrap(bytes).order(
+        ByteOrder.nativeOrder());
+      for (i = 0; i < fresh.current.length; i ++)
+      {
+        int pixel = fresh.current[i];
+        int actual = (bytesPerPixel == 4) ? buffer.getInt(4 * i)
+          : (0xFF000000 | ((bytes[3 * i] & 0xFF) << 16) | ((bytes[(3 * i)
+          + 1] & 0xFF) << 8) | (bytes[(3 * i) + 2] & 0xFF));
+        if (actual != ((bytesPerPixel == 4) ? pixel : (pixel | 0xFF000000)))
+        {
+          expect(false, extension + " pixel " + i + " is "
+            + Integer.toHexString(actual) + " not "
+            + Integer.toHexString(pixel));
+        }
+      }
+    }
+    finally { file.delete(); }
+  }
+
+/*
+  exportRows() method
+
+  Raw files get only the rows that change, which must add up to the same
+  pixels as painting the last frame in full.  An old file that was larger
+  than a frame used to keep its extra bytes.
+*/
+  static void exportRows()
+  {
+    try
+    {
+      exportCompare(".raw");
+      exportCompare(".rgb");
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  formatCompare() method
+
+  Compile a format, and compare its text with SimpleDateFormat for <count>
+  clock ticks, <step> milliseconds apart, starting at <start>.  The compiled
+  format must be accepted: a format that falls back to SimpleDateFormat would
+  hide any difference.
+*/
+  static void formatCompare(String pattern, String zone, long start,
+    long step, int count)
+  {
+    SimpleDateFormat format;      // reference formatter
+    int i;                        // index variable
+    ShowDateTime1Format plan;     // compiled format
+    ShowDateTime1Text text;       // compiled text being checked
+    long time;                    // time of one tick
+
+    format = new SimpleDateFormat(pattern, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone(zone));
+    plan = ShowDateTime1Format.compile(format);
+    expect(plan != null, "not compiled: " + pattern);
+    text = new ShowDateTime1Text(plan, format);
+    for (i = 0; i < count; i ++)
+    {
+      time = start + (i * step);
+      text.update(time);
+      String expected = format.format(new Date(time));
+      expect(text.getText().equals(expected), pattern + " in " + zone
+        + " at " + time + ": \"" + text.getText() + "\" expected \""
+        + expected + "\"");
+    }
+  }
+
+/*
+  formatDaylight() method
+
+  Minute by minute through the spring and fall daylight saving changes, in
+  North America and Europe, with every kind of time zone field.
+*/
+  static void formatDaylight()
+  {
+    String pattern = "yyyy-MM-dd h:mm a HH:mm z zzzz Z X XX XXX";
+
+    formatCompare(pattern, "America/New_York", localTime("America/New_York",
+      2026, Calendar.MARCH, 8, 0, 0), 60000L, 240);
+    formatCompare(pattern, "America/New_York", localTime("America/New_York",
+      2026, Calendar.NOVEMBER, 1, 0, 0), 60000L, 240);
+    formatCompare(pattern, "Europe/London", localTime("Europe/London", 2026,
+      Calendar.MARCH, 29, 0, 0), 60000L, 240);
+    formatCompare(pattern, "Europe/London", localTime("Europe/London", 2026,
+      Calendar.OCTOBER, 25, 0, 0), 60000L, 240);
+  }
+
+/*
+  formatFallback() method
+
+  Patterns that can't be compiled are given to SimpleDateFormat, and must
+  still show the right text.
+*/
+  static void formatFallback()
+  {
+    SimpleDateFormat format;      // formatter that we can't compile
+    String[] patterns = { "ssssssssssssssssss", "GGGG y-MM-dd HH:mm" };
+                                  // too many digits, Japanese calendar
+    ShowDateTime1Text text;       // text using SimpleDateFormat
+    long time;                    // time of one tick
+
+    for (int i = 0; i < patterns.length; i ++)
+    {
+      format = new SimpleDateFormat(patterns[i], (i == 0) ? Locale.US
+        : new Locale("ja", "JP", "JP"));
+      format.setTimeZone(TimeZone.getTimeZone("UTC"));
+      expect(ShowDateTime1Format.compile(format) == null, "compiled: "
+        + patterns[i]);
+      text = new ShowDateTime1Text(format);
+      expect(text.isCompiled() == false, "text compiled: " + patterns[i]);
+      for (time = 1700000000000L; time < 1700000600000L; time += 7777)
+      {
+        text.update(time);
+        expect(text.getText().equals(format.format(new Date(time))),
+          patterns[i] + " at " + time + ": " + text.getText());
+      }
+    }
+  }
+
+/*
+  formatHours() method
+
+  Second by second through midnight and noon, with all four hour letters.
+*/
+  static void formatHours()
+  {
+    String pattern = "h:mm:ss a|K:mm:ss a|H:mm:ss|k:mm:ss|hh KK HH kk";
+
+    formatCompare(pattern, "UTC", localTime("UTC", 2026, Calendar.MARCH, 7,
+      23, 58), 1000L, 240);
+    formatCompare(pattern, "UTC", localTime("UTC", 2026, Calendar.MARCH, 8,
+      11, 58), 1000L, 240);
+    formatCompare(pattern, "UTC", localTime("UTC", 2026, Calendar.MARCH, 8,
+      0, 0), 60000L, 1500);       // every minute of a day
+  }
+
+/*
+  formatLetters() method
+
+  Every pattern letter that we compile, with short and long forms, for a
+  spread of dates that tries all months, weekdays, and hours.  The step is
+  the same as in compile(), but starts at a fixed time.
+*/
+  static void formatLetters()
+  {
+    formatCompare("G y yy yyyy Y YY YYYY M MM MMM MMMM L LL LLL LLLL",
+      "UTC", 946684800000L, 2966461001L, 200);
+    formatCompare("d dd D DDD F E EEE EEEE u w ww W",
+      "UTC", 946684800000L, 2966461001L, 200);
+    formatCompare("a h hh K KK H HH k kk m mm s ss S SS SSS",
+      "America/Chicago", 946684800000L, 2966461001L, 200);
+    formatCompare("z zzzz Z X XX XXX", "Australia/Adelaide", 946684800000L,
+      2966461001L, 200);
+    formatCompare("yyyy-MM-dd HH:mm:ss.SSS", "UTC", 1700000000000L, 37L,
+      5000);                      // milliseconds, tick by tick
+  }
+
+/*
+  formatLiterals() method
+
+  Literal text is copied exactly, with no escaping: HTML tags, character
+  entities, doubled quotes, and quoted letters.
+*/
+  static void formatLiterals()
+  {
+    String pattern                // like the default -d format
+      = "'<html>'EEE d MMM yyyy'<br>'h:mm'&nbsp;'a '''z''' '''o''clock</html>'";
+    SimpleDateFormat format;      // reference formatter
+    ShowDateTime1Text text;       // compiled text
+
+    formatCompare(pattern, "UTC", 1700000000000L, 61000L, 100);
+    format = new SimpleDateFormat(pattern, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    text = new ShowDateTime1Text(format);
+    text.update(1700000000000L);
+    expect(text.getText().equals("<html>Tue 14 Nov 2023<br>10:13&nbsp;PM 'z' "
+      + "'o'clock</html>"), "literal text: " + text.getText());
+  }
+
+/*
+  formatYears() method
+
+  Minute by minute through new year, and hour by hour through leap days,
+  including week years and days of the year.
+*/
+  static void formatYears()
+  {
+    String pattern = "EEE yyyy-MM-dd D YYYY-'W'ww-u HH:mm";
+
+    formatCompare(pattern, "UTC", localTime("UTC", 2023, Calendar.DECEMBER,
+      31, 23, 0), 60000L, 120);
+    formatCompare(pattern, "Pacific/Auckland", localTime("Pacific/Auckland",
+      2026, Calendar.DECEMBER, 31, 23, 0), 60000L, 120);
+    formatCompare(pattern, "UTC", localTime("UTC", 2024, Calendar.FEBRUARY,
+      27, 0, 0), 3600000L, 96);   // leap day
+    formatCompare(pattern, "UTC", localTime("UTC", 2100, Calendar.FEBRUARY,
+      27, 0, 0), 3600000L, 96);   // not a leap year
+  }
+
+/*
+  freePort() method
+
+  Return a TCP port number that nobody is using right now.
+*/
+  static int freePort() throws IOException
+  {
+    ServerSocket socket = new ServerSocket(0);
+    int port = socket.getLocalPort();
+    socket.close();
+    return(port);
+  }
+
+/*
+  labelFont() method
+
+  A new font or size must throw away the cached glyphs, and the label must
+  then look the same as a new label with that font.
+*/
+  static void labelFont()
+  {
+    Font[] fonts;                 // fonts to try, one after another
+    ShowDateTime1Label label;     // label that changes fonts
+    String text = "<html>Tue 14 Nov 2023<br>10:13:20 PM UTC</html>";
+
+    fonts = new Font[] { new Font("Dialog", Font.PLAIN, 24), new Font(
+      "Dialog", Font.PLAIN, 40), new Font("Dialog", Font.BOLD, 40), new Font(
+      "Monospaced", Font.ITALIC, 30) };
+    label = (ShowDateTime1Label) labelSetup(new ShowDateTime1Label(text,
+      JLabel.CENTER), fonts[0]);
+    labelImage(label, null);      // glyphs for first font are now cached
+    for (int i = 1; i < fonts.length; i ++)
+    {
+      label.setFont(fonts[i]);
+      for (int k = 0; k < label.glyphs.length; k ++)
+        expect(label.glyphs[k] == null, "glyphs kept after new font "
+          + fonts[i]);
+      expect(samePixels(labelImage(label, null), labelImage(labelSetup(
+        new ShowDateTime1Label(text, JLabel.CENTER), fonts[i]), null)),
+        "different from new label with " + fonts[i]);
+      for (int k = 0; k < label.glyphs.length; k ++)
+        expect(label.glyphs[k].getFont().equals(fonts[i]), "glyphs for "
+          + label.glyphs[k].getFont() + " not " + fonts[i]);
+    }
+  }
+
+/*
+  labelImage() method
+
+  Paint a label (a ShowDateTime1Label) on a new image, or on an old image if
+  one is given.  With a list of dirty rectangles, paint only those, as the
+  repaint manager would.
+*/
+  static BufferedImage labelImage(JLabel label, BufferedImage image,
+    Rectangle... dirty)
+  {
+    Graphics2D gr;                // graphics context for image
+
+    if (image == null)
+      image = new BufferedImage(label.getWidth(), label.getHeight(),
+        BufferedImage.TYPE_INT_RGB);
+    if (dirty.length == 0)        // full repaint
+      dirty = new Rectangle[] { new Rectangle(0, 0, label.getWidth(),
+        label.getHeight()) };
+    for (int i = 0; i < dirty.length; i ++)
+    {
+      gr = image.createGraphics();
+      gr.setClip(dirty[i]);
+      ((ShowDateTime1Label) label).paintLabel(gr);
+      gr.dispose();
+    }
+    return(image);
+  }
+
+/*
+  labelSetup() method
+
+  Give a label our colors and font, and the size of the default window.  It
+  is never shown, so it has no repaint manager.
+*/
+  static JLabel labelSetup(JLabel label, Font font)
+  {
+    label.setBackground(Color.WHITE);
+    label.setFont(font);
+    label.setForeground(Color.BLACK);
+    label.setOpaque(true);
+    label.setSize(400, 150);
+    return(label);
+  }
+
+/*
+  labelRepaint() method
+
+  When only some characters change, setText() asks to repaint only their
+  rectangles.  Painting those rectangles over the old image must give the
+  same pixels as painting the new text from scratch, for texts that keep
+  their width, change width, or change in more than one line, in plain and
+  italic fonts.
+*/
+  static void labelRepaint()
+  {
+    final Vector<Rectangle> dirty = new Vector<Rectangle>();
+                                  // rectangles from repaint() calls
+    Font[] fonts;                 // fonts to try
+    BufferedImage image;          // old image with dirty parts repainted
+    ShowDateTime1Label label;     // label being changed
+    boolean partial;              // true if any change was partial
+    String[] texts;               // each text in turn
+
+    fonts = new Font[] { new Font("Dialog", Font.PLAIN, 32), new Font(
+      "Serif", Font.ITALIC, 32) };
+    texts = new String[] { "<html>Tue 14 Nov 2023<br>9:59:58 PM</html>",
+      "<html>Tue 14 Nov 2023<br>9:59:59 PM</html>",
+      "<html>Tue 14 Nov 2023<br>10:00:00 PM</html>",
+      "<html>Tue 14 Nov 2023<br>10:00:01 PM</html>",
+      "<html>Wed 15 Nov 2023<br>10:00:11 PM</html>",
+      "12:34:56", "12:34:57", "12:35:07" };
+    partial = false;
+    for (int f = 0; f < fonts.length; f ++)
+    {
+      label = new ShowDateTime1Label(texts[0], JLabel.CENTER) {
+        static final long serialVersionUID = 1L;
+        public void repaint(long when, int x, int y, int width, int height)
+        {
+          dirty.add(new Rectangle(x, y, width, height));
+        } };
+      labelSetup(label, fonts[f]);
+      image = labelImage(label, null);
+      for (int i = 1; i < texts.length; i ++)
+      {
+        dirty.clear();
+        label.setText(texts[i]);
+        expect(dirty.size() > 0, "nothing repainted for " + texts[i]);
+        for (int k = 0; k < dirty.size(); k ++)
+          if ((dirty.get(k).width * dirty.get(k).height) < (400 * 150 / 2))
+            partial = true;
+        labelImage(label, image, dirty.toArray(new Rectangle[0]));
+        expect(samePixels(image, labelImage(label, null)), "partial repaint"
+          + " differs for " + texts[i] + " in " + fonts[f]);
+      }
+    }
+    expect(partial, "every change repainted the whole label");
+  }
+
+/*
+  localTime() method
+
+  Return the time in milliseconds for a local date and time in a zone.
+*/
+  static long localTime(String zone, int year, int month, int day, int hour,
+    int minute)
+  {
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(zone));
+    calendar.clear();
+    calendar.set(year, month, day, hour, minute, 0);
+    return(calendar.getTimeInMillis());
+  }
+
+/*
+  metricsReport() method
+
+  Histogram buckets are powers of two microseconds, and a percentile is the
+  top of the bucket where its rank falls, but never more than the maximum.
+  One hundred known times give known answers.
+*/
+  static void metricsReport()
+  {
+    ShowDateTime1Metrics metrics; // statistics with no MBean or thread
+    String report;                // text report
+
+    metrics = new ShowDateTime1Metrics(0);
+    for (int i = 0; i < 50; i ++) // 8 to 15 microseconds: top is 15
+      metrics.record(ShowDateTime1Metrics.LATENESS, 10000L);
+    for (int i = 0; i < 40; i ++) // 64 to 127: top is 127
+      metrics.record(ShowDateTime1Metrics.LATENESS, 100000L);
+    for (int i = 0; i < 9; i ++)  // 512 to 1023: top is 1023
+      metrics.record(ShowDateTime1Metrics.LATENESS, 1000000L);
+    metrics.record(ShowDateTime1Metrics.LATENESS, 5000000L);
+                                  // 4096 to 8191, but the maximum is 5000
+    long[] expected = { 100, 185, 15, 127, 1023, 5000 };
+    for (int k = 0; k < expected.length; k ++)
+      expect(metrics.statistic(ShowDateTime1Metrics.LATENESS, k)
+        == expected[k], ShowDateTime1Metrics.STATISTICS[k] + " is "
+        + metrics.statistic(ShowDateTime1Metrics.LATENESS, k));
+
+    metrics.record(ShowDateTime1Metrics.FORMAT, -5000L); // negative is zero
+    metrics.record(ShowDateTime1Metrics.FORMAT, 999L); // less than 1 us
+    metrics.record(ShowDateTime1Metrics.FORMAT, 1000L); // bucket for 1 us
+    expect(metrics.counts[ShowDateTime1Metrics.FORMAT][0] == 2,
+      "zero bucket");
+    expect(metrics.statistic(ShowDateTime1Metrics.FORMAT, 4) == 1,
+      "P99 of zero and one");
+    metrics.record(ShowDateTime1Metrics.SET_TEXT, Long.MAX_VALUE);
+    expect(metrics.counts[ShowDateTime1Metrics.SET_TEXT]
+      [ShowDateTime1Metrics.BUCKETS - 1] == 1, "huge time not in last bucket");
+
+    metrics.ticks = 7;
+    report = metrics.report();
+    expect(report.startsWith("Ticks 7, WastedTicks 0,"), "counters: "
+      + report);
+    expect(report.indexOf("Lateness: Count 100 MeanMicros 185 P50Micros 15"
+      + " P90Micros 127 P99Micros 1023 MaxMicros 5000") >= 0, "lateness: "
+      + report);
+    expect(report.indexOf("Repaint: Count 0 MeanMicros 0 P50Micros 0"
+      + " P90Micros 0 P99Micros 0 MaxMicros 0") >= 0, "empty: " + report);
+    metrics.reset();
+    expect(metrics.statistic(ShowDateTime1Metrics.LATENESS, 0) == 0,
+      "reset");
+  }
+
+/*
+  metricsThreads() method
+
+  The -r drawing thread and the event dispatch thread both record times.  No
+  count may be lost.
+*/
+  static void metricsThreads()
+  {
+    final ShowDateTime1Metrics metrics = new ShowDateTime1Metrics(0);
+    Thread[] threads;             // threads recording at the same time
+
+    threads = new Thread[4];
+    for (int i = 0; i < threads.length; i ++)
+    {
+      final int histogram = i % 2; // two threads for each histogram
+      threads[i] = new Thread(new Runnable() { public void run() {
+        for (int k = 0; k < 200000; k ++)
+        {
+          metrics.record(histogram, (k * 1000L));
+          synchronized (metrics) { metrics.frames ++; }
+        } } });
+      threads[i].start();
+    }
+    for (int i = 0; i < threads.length; i ++)
+    {
+      try { threads[i].join(); } catch (InterruptedException ie) { }
+    }
+    expect(metrics.statistic(0, 0) == 400000, "count " + metrics
+      .statistic(0, 0));
+    expect(metrics.statistic(1, 0) == 400000, "count " + metrics
+      .statistic(1, 0));
+    expect(metrics.counter(8) == 800000, "frames " + metrics.counter(8));
+  }
+
+/*
+  readLine() method
+
+  Connect to a port, send a request, and return the first line of the answer.
+*/
+  static String readLine(int port, String request) throws IOException
+  {
+    Socket socket = null;         // connection to time server
+    IOException problem = null;   // last failure while server starts
+
+    for (int i = 0; (socket == null) && (i < 50); i ++)
+    {
+      try { socket = new Socket("localhost", port); }
+      catch (IOException ioe)     // server may not be listening yet
+      {
+        problem = ioe;
+        try { Thread.sleep(100); } catch (InterruptedException ie) { }
+      }
+    }
+    if (socket == null)
+      throw problem;
+    try
+    {
+      socket.setSoTimeout(5000);
+      if (request != null)
+      {
+        socket.getOutputStream().write(request.getBytes("UTF-8"));
+        socket.getOutputStream().flush();
+      }
+      return(new BufferedReader(new InputStreamReader(socket
+        .getInputStream(), "UTF-8")).readLine());
+    }
+    finally { socket.close(); }
+  }
+
+/*
+  samePixels() method
+
+  Return true if two images of the same size have the same pixels.
+*/
+  static boolean samePixels(BufferedImage one, BufferedImage two)
+  {
+    if ((one.getWidth() != two.getWidth()) || (one.getHeight()
+      != two.getHeight()))
+    {
+      return(false);
+    }
+    for (int y = 0; y < one.getHeight(); y ++)
+      for (int x = 0; x < one.getWidth(); x ++)
+        if (one.getRGB(x, y) != two.getRGB(x, y))
+          return(false);
+    return(true);
+  }
+
+/*
+  scheduleCountdown() method
+
+  Countdowns are in days and hours, hours and minutes, or minutes and
+  seconds, and change when the smallest unit shown changes.
+*/
+  static void scheduleCountdown()
+  {
+    long change;                  // milliseconds until countdown changes
+    int i;                        // index variable
+    long now;                     // time of update in UTC
+    long[] remaining;             // time until event in milliseconds
+    String[] results;             // countdown expected for each time
+    ShowDateTime1Schedule schedule; // schedule being checked
+    long[] waits;                 // change expected for each time
+
+    remaining = new long[] { (2 * 86400000L) + (5 * 3600000L) + 1810000L,
+      86400000L, (3 * 3600000L) + 245500L, 3600000L, 245250L, 999L, 0L };
+    results = new String[] { "2d 05h", "1d 00h", "3h 04m", "1h 00m", "4:05",
+      "0:00", "0:00" };
+    waits = new long[] { 1810001L, 1L, 5501L, 1L, 251L, 1000L, 1L };
+    schedule = (ShowDateTime1Schedule) scheduleOpen(null, 5);
+    for (i = 0; i < remaining.length; i ++)
+    {
+      schedule.nextLength = 0;
+      change = schedule.putCountdown(remaining[i]);
+      String text = new String(schedule.next, 0, schedule.nextLength);
+      expect(text.equals(results[i]) && (change == waits[i]), remaining[i]
+        + " gave " + text + " changing in " + change);
+    }
+
+    try
+    {
+      File file = File.createTempFile("ShowDateTime1Test", ".txt");
+      try
+      {
+        writeText(file, "2026-10-17 12:01:30 | Train\n", false);
+        schedule = (ShowDateTime1Schedule) scheduleOpen(file, 5);
+        now = localTime("UTC", 2026, 9, 17, 12, 0) + 250;
+        expect(schedule.update(now), "no text at " + now);
+        expect(schedule.getText().equals("<html>1:29 Train</html>"),
+          "text: " + schedule.getText());
+        expect(schedule.nextDelay(now) == (751
+          + ShowDateTime1Ticker.TICK_MARGIN), "delay: "
+          + schedule.nextDelay(now));
+        expect((schedule.update(now + 750) == false)
+          && schedule.update(now + 751), "changed at wrong time");
+        expect(schedule.getText().equals("<html>1:28 Train</html>"),
+          "next text: " + schedule.getText());
+      }
+      finally { file.delete(); }
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  scheduleDates() method
+
+  Dates that don't exist, such as February 31st, used to be moved into the
+  next month instead of being rejected.
+*/
+  static void scheduleDates()
+  {
+    Calendar calendar;            // calendar for parsing, in UTC
+    int i;                        // index variable
+    String[] invalid;             // times that must be rejected
+
+    calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    invalid = new String[] { "2026-02-31 10:00", "2026-02-29 10:00",
+      "2026-04-31 10:00", "2026-11-31 10:00:00", "2026-13-01 10:00",
+      "2026-00-01 10:00", "2026-01-00 10:00", "2026-01-01 24:00",
+      "2026-01-01 10:60", "2026-1-01 10:00", "tomorrow" };
+    for (i = 0; i < invalid.length; i ++)
+      expect(ShowDateTime1Schedule.parseTime(invalid[i], calendar)
+        == Long.MIN_VALUE, "accepted " + invalid[i]);
+    expect(ShowDateTime1Schedule.parseTime("2024-02-29 10:00", calendar)
+      == localTime("UTC", 2024, 1, 29, 10, 0), "leap day");
+    expect(ShowDateTime1Schedule.parseTime("2026-12-31T23:59:59", calendar)
+      == (localTime("UTC", 2026, 11, 31, 23, 59) + 59000), "end of year");
+    expect(ShowDateTime1Schedule.parseTime("1700000000123", calendar)
+      == 1700000000123L, "milliseconds");
+  }
+
+/*
+  scheduleGroups() method
+
+  Events at the same time are kept together, in the order they were read,
+  and count as separate events when only the first few are shown.
+*/
+  static void scheduleGroups()
+  {
+    long now;                     // time of update in UTC
+    ShowDateTime1Schedule schedule; // schedule being checked
+
+    try
+    {
+      File file = File.createTempFile("ShowDateTime1Test", ".txt");
+      try
+      {
+        writeText(file, "# departures\n\n2026-10-17 13:00 | B & C\n"
+          + "2026-10-17 12:30 | First\n2026-10-17 13:00 | <Second>\n"
+          + "2026-11-31 10:00 | Bad date\n2026-10-17 14:00 | Later\n",
+          false);
+        schedule = (ShowDateTime1Schedule) scheduleOpen(file, 3);
+        now = localTime("UTC", 2026, 9, 17, 12, 0);
+        schedule.update(now);
+        expect(schedule.getText().equals("<html>30:00 First<br>1h 00m"
+          + " B &amp; C<br>1h 00m &lt;Second&gt;</html>"), "text: "
+          + schedule.getText());
+        expect(schedule.events.size() == 3, "times: "
+          + schedule.events.keySet());
+        expect(schedule.events.get(Long.valueOf(now + 3600000L)).size()
+          == 2, "events at 13:00: " + schedule.events);
+        schedule.update(now + 1800000L); // first event has happened
+        expect(schedule.getText().equals("<html>30:00 B &amp; C<br>30:00"
+          + " &lt;Second&gt;<br>1h 30m Later</html>"), "after first: "
+          + schedule.getText());
+      }
+      finally { file.delete(); }
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  scheduleOpen() method
+
+  Create a schedule in UTC for a file, and return it.  The return type is
+  Object so that no helper class appears in our method signatures.
+*/
+  static Object scheduleOpen(File file, int count)
+  {
+    ShowDateTime1Options options; // options for -q and -d
+
+    options = new ShowDateTime1Options();
+    options.formatDate = new SimpleDateFormat("HH:mm:ss", Locale.US);
+    options.formatDate.setTimeZone(TimeZone.getTimeZone("UTC"));
+    options.scheduleCount = count;
+    options.scheduleFile = (file == null) ? null : file.getPath();
+    return(new ShowDateTime1Schedule(options));
+  }
+
+/*
+  schedulePast() method
+
+  Events in the past are skipped when the file is read, and events are
+  removed once they happen, until there are no more.
+*/
+  static void schedulePast()
+  {
+    long now;                     // time of update in UTC
+    ShowDateTime1Schedule schedule; // schedule being checked
+
+    try
+    {
+      File file = File.createTempFile("ShowDateTime1Test", ".txt");
+      try
+      {
+        writeText(file, "2026-10-17 11:00 | Gone\n2026-10-17 12:00 | Now"
+          + "\n2026-10-17 12:00:01 | Soon\n2026-10-17 12:02 | Next\n",
+          false);
+        schedule = (ShowDateTime1Schedule) scheduleOpen(file, 5);
+        now = localTime("UTC", 2026, 9, 17, 12, 0);
+        schedule.update(now);
+        expect(schedule.events.size() == 2, "events: " + schedule.events);
+        expect(schedule.getText().equals("<html>0:01 Soon<br>2:00 Next"
+          + "</html>"), "text: " + schedule.getText());
+        expect(schedule.update(now + 1000), "no change after first event");
+        expect(schedule.getText().equals("<html>1:59 Next</html>")
+          && (schedule.events.size() == 1), "after first: "
+          + schedule.getText());
+        schedule.update(now + 120000);
+        expect(schedule.getText().equals("<html>No more events</html>")
+          && schedule.events.isEmpty(), "at end: " + schedule.getText());
+      }
+      finally { file.delete(); }
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  scheduleReread() method
+
+  Lines added to the file are read once, a partial line waits for its end,
+  and a file that gets shorter or changes without growing is read again.
+*/
+  static void scheduleReread()
+  {
+    long now;                     // time of update in UTC
+    ShowDateTime1Schedule schedule; // schedule being checked
+
+    try
+    {
+      File file = File.createTempFile("ShowDateTime1Test", ".txt");
+      try
+      {
+        now = localTime("UTC", 2026, 9, 17, 12, 0);
+        writeText(file, "2026-10-17 13:00 | One\n2026-10-17 14:00 | Tw",
+          false);
+        schedule = (ShowDateTime1Schedule) scheduleOpen(file, 5);
+        schedule.update(now);
+        expect(schedule.getText().equals("<html>1h 00m One</html>"),
+          "partial line: " + schedule.getText());
+
+        writeText(file, "o\n2026-10-17 12:30 | Zero\n", true);
+        now += ShowDateTime1Schedule.CHECK_DELAY;
+        schedule.update(now);
+        expect(schedule.getText().startsWith("<html>29:")
+          && schedule.getText().endsWith(" Zero<br>59:00 One<br>1h 59m"
+          + " Two</html>"), "added lines: " + schedule.getText());
+        expect((schedule.lineNumber == 3) && (schedule.offset
+          == file.length()), "line " + schedule.lineNumber + " offset "
+          + schedule.offset);
+
+        writeText(file, "2026-10-17 15:00 | Three\n", false);
+        now += ShowDateTime1Schedule.CHECK_DELAY;
+        schedule.update(now);
+        expect(schedule.getText().endsWith(" Three</html>")
+          && (schedule.events.size() == 1), "shorter file: "
+          + schedule.getText());
+
+        writeText(file, "2026-10-17 16:00 | Four!\n", false);
+        file.setLastModified(schedule.modified + 2000); // same size
+        now += ShowDateTime1Schedule.CHECK_DELAY;
+        schedule.update(now);
+        expect(schedule.getText().endsWith(" Four!</html>")
+          && (schedule.events.size() == 1), "same size: "
+          + schedule.getText());
+      }
+      finally { file.delete(); }
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  serverBadQuery() method
+
+  A query with a malformed "%" escape used to kill the time server's only
+  thread.  It should get "400 Bad Request", and both ports should keep
+  working.
+*/
+  static void serverBadQuery()
+  {
+    try
+    {
+      final ShowDateTime1Options options = new ShowDateTime1Options();
+      options.eventPort = freePort();
+      options.linePort = freePort();
+      Thread server = new Thread(new Runnable() {
+        public void run() { ShowDateTime1Server.serve(options); } });
+      server.setDaemon(true);     // serve() never returns
+      server.start();
+
+      String answer = readLine(options.eventPort,
+        "GET /?d=%zz HTTP/1.1\r\n\r\n");
+      expect((answer != null) && (answer.indexOf("400") >= 0),
+        "bad query answered with: " + answer);
+      expect(server.isAlive(), "server thread died");
+      answer = readLine(options.eventPort, "GET /?d=HH HTTP/1.1\r\n\r\n");
+      expect((answer != null) && (answer.indexOf("200") >= 0),
+        "good query answered with: " + answer);
+      answer = readLine(options.linePort, null);
+      expect((answer != null) && (answer.length() > 0),
+        "line port answered with: " + answer);
+    }
+    catch (IOException ioe)
+    {
+      throw new IllegalStateException(ioe.toString());
+    }
+  }
+
+/*
+  tickerBackwards() method
+
+  When the clock jumps backwards, the next tick must show the earlier time,
+  and ticks must go on from there, as they do after a change to the system
+  clock.
+*/
+  static void tickerBackwards()
+  {
+    ShowDateTime1Clock clock;     // stepping virtual clock
+    SimpleDateFormat format;      // reference formatter
+    int i;                        // index variable
+    long now;                     // virtual time of one tick
+    ShowDateTime1Text text;       // compiled text being checked
+
+    format = new SimpleDateFormat("HH:mm:ss", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    text = new ShowDateTime1Text((SimpleDateFormat) format.clone());
+    clock = ShowDateTime1Clock.active = new ShowDateTime1Clock(1700000000123L,
+      0);
+    try
+    {
+      for (i = 0; i < 40; i ++)
+      {
+        now = clock.read();
+        if (i == 20)              // system clock set back one hour
+        {
+          clock.anchorMillis -= 3600000L;
+          now = clock.read();
+          expect(text.update(now), "no change after jump at " + now);
+        }
+        else
+          text.update(now);
+        expect(text.getText().equals(format.format(new Date(now))),
+          "at " + now + ": " + text.getText());
+        int delay = text.nextDelay(now);
+        expect((delay > 0) && (delay <= (1000
+          + ShowDateTime1Ticker.TICK_MARGIN)), "delay " + delay + " at "
+          + now);
+        ShowDateTime1Clock.realDelay(now, delay);
+      }
+    }
+    finally { ShowDateTime1Clock.active = null; }
+  }
+
+/*
+  tickerDaylight() method
+
+  Through the spring and fall daylight saving changes, for minutes and for
+  hours, where the hour that is skipped or repeated has boundaries that the
+  calendar can't find simply.
+*/
+  static void tickerDaylight()
+  {
+    String[] patterns = { "h:mm a z", "h a z", "HH'h' zzzz" };
+    String zone = "America/New_York";
+
+    for (int i = 0; i < patterns.length; i ++)
+    {
+      tickerSteps(patterns[i], zone, localTime(zone, 2026, Calendar.MARCH, 7,
+        23, 30), localTime(zone, 2026, Calendar.MARCH, 8, 4, 30));
+      tickerSteps(patterns[i], zone, localTime(zone, 2026, Calendar.OCTOBER,
+        31, 23, 30), localTime(zone, 2026, Calendar.NOVEMBER, 1, 4, 30));
+    }
+  }
+
+/*
+  tickerDelays() method
+
+  The delay is to the next real boundary of the smallest unit, plus
+  TICK_MARGIN, but never more than TICK_LIMIT.  Hours in a time zone with a
+  30-minute offset change at half past the hour in UTC.
+*/
+  static void tickerDelays()
+  {
+    long hour = localTime("UTC", 2026, Calendar.MARCH, 8, 10, 0);
+                                  // a round hour in UTC
+    int margin = ShowDateTime1Ticker.TICK_MARGIN; // after each boundary
+
+    expect(tickerDelay("HH:mm:ss", "UTC", (hour + 250)) == (750 + margin),
+      "seconds");
+    expect(tickerDelay("HH:mm:ss", "UTC", hour) == (1000 + margin),
+      "seconds, at boundary");
+    expect(tickerDelay("HH:mm", "UTC", (hour + 30250)) == (29750 + margin),
+      "minutes");
+    expect(tickerDelay("HH", "UTC", (hour + 60000)) == (ShowDateTime1Ticker
+      .TICK_LIMIT + margin), "hours, limited");
+    expect(tickerDelay("HH", "UTC", (hour + 3570000)) == (30000 + margin),
+      "hours, near end");
+    expect(tickerDelay("HH", "Asia/Kolkata", (hour + 1770000)) == (30000
+      + margin), "hours, half-hour zone");
+    expect(tickerDelay("HH:mm:ss.SSS", "UTC", (hour + 250))
+      == ShowDateTime1.TIMER_DELAY, "milliseconds");
+
+    tickerSteps("HH:mm:ss", "UTC", (hour + 123), (hour + 180000));
+    tickerSteps("HH:mm", "Asia/Kolkata", (hour - 3600000), (hour + 3600000));
+  }
+
+/*
+  tickerDelay() method
+
+  Return the ticker's delay for one pattern, time zone, and time.
+*/
+  static int tickerDelay(String pattern, String zone, long now)
+  {
+    SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone(zone));
+    return(new ShowDateTime1Ticker(format).nextDelay(now));
+  }
+
+/*
+  tickerSteps() method
+
+  Run a stepping virtual clock from <start> to <end>, waiting for each delay
+  from nextDelay(), as the shared timer does.  Every change must be seen, no
+  later than TICK_MARGIN after it happens, and the text must be correct.
+*/
+  static void tickerSteps(String pattern, String zone, long start, long end)
+  {
+    long changes;                 // changes that we saw
+    ShowDateTime1Clock clock;     // stepping virtual clock
+    long expected;                // changes found second by second
+    SimpleDateFormat format;      // reference formatter
+    String last;                  // previous text, for counting changes
+    long now;                     // virtual time of one tick
+    ShowDateTime1Text text;       // compiled text being checked
+
+    format = new SimpleDateFormat(pattern, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone(zone));
+    expected = 0;
+    last = format.format(new Date(start));
+    for (now = ((start / 1000) + 1) * 1000; now < end; now += 1000)
+    {
+      String next = format.format(new Date(now));
+      if (next.equals(last) == false)
+        expected ++;
+      last = next;
+    }
+
+    text = new ShowDateTime1Text((SimpleDateFormat) format.clone());
+    text.update(start);
+    changes = 0;
+    clock = ShowDateTime1Clock.active = new ShowDateTime1Clock(start, 0);
+    try
+    {
+      ShowDateTime1Clock.realDelay(start, text.nextDelay(start));
+      while ((now = clock.read()) < end)
+      {
+        String where = pattern + " in " + zone + " at " + now;
+        if (text.update(now))
+        {
+          changes ++;
+          expect(text.getText().equals(format.format(new Date(now
+            - ShowDateTime1Ticker.TICK_MARGIN - 1))) == false, where
+            + ": change seen late");
+        }
+        expect(text.getText().equals(format.format(new Date(now))), where
+          + ": " + text.getText());
+        int delay = text.nextDelay(now);
+        expect((delay > 0) && (delay <= (ShowDateTime1Ticker.TICK_LIMIT
+          + ShowDateTime1Ticker.TICK_MARGIN)), where + ": delay " + delay);
+        ShowDateTime1Clock.realDelay(now, delay);
+      }
+    }
+    finally { ShowDateTime1Clock.active = null; }
+    expect(changes == expected, pattern + " in " + zone + ": " + changes
+      + " changes, expected " + expected);
+  }
+
+/*
+  writeText() method
+
+  Write or append text to a file, as UTF-8.
+*/
+  static void writeText(File file, String text, boolean append)
+    throws IOException
+  {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file,
+      append), "UTF-8");
+    writer.write(text);
+    writer.close();
+  }
+
+} // end of ShowDateTime1Test class
+
+/* Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL. */
@@ -0,0 +1,162 @@
+/*
+  Show Date Time #1 - JMH Benchmarks
+  Java class name: ShowDateTime1Jmh
+  Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL.
+
+  JMH benchmarks for the work done on each clock tick in ShowDateTime1.  The
+  Maven build in this directory compiles a copy of ShowDateTime1.java in
+  package "showdatetime1", since JMH won't run benchmarks from the default
+  package, and makes one jar file with everything.  Build and run with:
+
+      mvn  package
+      java  -Djava.awt.headless=true  -jar target/benchmarks.jar  -prof gc
+
+  Each benchmark is one clock tick, with a simulated clock that moves TICK_STEP
+  milliseconds per operation, so the text changes as often as it does in a
+  window.  We report throughput and sampled latency (percentiles); "-prof gc"
+  adds allocation per operation and per second, and garbage collections.
+  Give "-p pattern=..." to try other -d patterns.
+
+      formatOld = SimpleDateFormat.format() and String.equals() on each tick,
+          as in ShowDateTime1 before the format was compiled
+      formatNew = ShowDateTime1Text.update(), and getText() if changed
+      updateNew = ShowDateTime1Text.update() only
+      equalsSame, equalsDiff = String.equals() on equal or different text,
+          as used to find changes in userButton()
+      labelPlain, labelHtml = JLabel.setText() and layout, default text as
+          one line (plain) or as given (HTML), in ShowDateTime1JmhLabel
+      labelOurs = ShowDateTime1Label.setText() and layout, HTML text
+
+  Components are never shown, so the label benchmarks call them from the
+  benchmark thread, not the event dispatch thread.  ShowDateTime1Bench.java,
+  next to ShowDateTime1.java, has a soak test and paint benchmarks that need
+  no build.
+
+  Apache License or GNU General Public License
+  --------------------------------------------
+  ShowDateTime1Jmh is free software and has been released under the terms
+  and conditions of the Apache License (version 2.0 or later) and/or the GNU
+  General Public License (GPL, version 2 or later).  This program is
+  distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+  PARTICULAR PURPOSE.  See the license(s) for more details.  You should have
+  received a copy of the licenses along with this program.  If not, see the
+  http://www.apache.org/licenses/ and http://www.gnu.org/licenses/ web pages.
+*/
+
+package showdatetime1;
+
+import java.text.*;               // date formats
+import java.util.*;               // dates
+import java.util.concurrent.TimeUnit; // units for results
+import org.openjdk.jmh.annotations.*; // JMH benchmark annotations
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class ShowDateTime1Jmh
+{
+  /* constants */
+
+  static final long START_TIME = 1269361800000L; // 23 March 2010, 16:30 UTC
+  static final int TEXT_COUNT = 60; // different strings for text benchmarks
+  static final long TICK_STEP = 100; // milliseconds between simulated ticks
+
+  /* parameters */
+
+  @Param({"'<html>'EEE d MMM yyyy'<br>'h:mm:ss a z'</html>'", "HH:mm:ss",
+    "EEEE, d MMMM yyyy", "yyyy-MM-dd'T'HH:mm:ssXXX"})
+  public String pattern;          // date format, as given with -d
+
+  /* instance variables */
+
+  String[] copies;                // same text as <strings>, different objects
+  SimpleDateFormat format;        // formatter for current pattern
+  String previous;                // previous text for formatOld
+  String[] strings;               // text for equals benchmarks
+  ShowDateTime1Text text;         // compiled format for current pattern
+  long time;                      // simulated clock time in milliseconds
+
+/*
+  setup() method
+
+  Create the formatter, compiled text, and test strings for one pattern.
+*/
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    int i;                        // index variable
+
+    format = new SimpleDateFormat(pattern);
+    text = new ShowDateTime1Text((SimpleDateFormat) format.clone());
+    copies = new String[TEXT_COUNT];
+    strings = new String[TEXT_COUNT];
+    for (i = 0; i < TEXT_COUNT; i ++) // one minute of text, a second apart
+    {
+      strings[i] = format.format(new Date(START_TIME + (i * 1000L)));
+      copies[i] = new String(strings[i].toCharArray()); // not the same object
+    }
+    previous = null;
+    time = START_TIME;
+  }
+
+/*
+  index() method
+
+  Advance the simulated clock by one tick, and return which string to use.
+*/
+  int index()
+  {
+    time += TICK_STEP;
+    return((int) ((time / TICK_STEP) % TEXT_COUNT));
+  }
+
+  /* benchmarks, one clock tick each */
+
+  @Benchmark
+  public boolean equalsDiff()
+  {
+    int index = index();
+    return(strings[index].equals(copies[(index + 1) % TEXT_COUNT]));
+  }
+
+  @Benchmark
+  public boolean equalsSame()
+  {
+    int index = index();
+    return(strings[index].equals(copies[index]));
+  }
+
+  @Benchmark
+  public String formatNew()
+  {
+    time += TICK_STEP;
+    return(text.update(time) ? text.getText() : null);
+  }
+
+  @Benchmark
+  public String formatOld()
+  {
+    String newText;               // current text
+
+    time += TICK_STEP;
+    newText = format.format(new Date(time));
+    if (newText.equals(previous))
+      return(null);
+    previous = newText;
+    return(newText);
+  }
+
+  @Benchmark
+  public boolean updateNew()
+  {
+    time += TICK_STEP;
+    return(text.update(time));
+  }
+
+} // end of ShowDateTime1Jmh class
+
+/* Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL. */
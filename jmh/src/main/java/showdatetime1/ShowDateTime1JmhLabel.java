@@ -0,0 +1,143 @@
+/*
+  Show Date Time #1 - JMH Label Benchmarks
+  Java class name: ShowDateTime1JmhLabel
+  Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL.
+
+  JMH benchmarks for labels, with the program's default date format only, so
+  they don't run again for each pattern in ShowDateTime1Jmh.  The text changes
+  on every operation.  See ShowDateTime1Jmh.java for how to build and run.
+
+  Apache License or GNU General Public License
+  --------------------------------------------
+  ShowDateTime1JmhLabel is free software and has been released under the
+  terms and conditions of the Apache License (version 2.0 or later) and/or the
+  GNU General Public License (GPL, version 2 or later).  This program is
+  distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+  PARTICULAR PURPOSE.  See the license(s) for more details.  You should have
+  received a copy of the licenses along with this program.  If not, see the
+  http://www.apache.org/licenses/ and http://www.gnu.org/licenses/ web pages.
+*/
+
+package showdatetime1;
+
+import java.awt.*;                // older Java GUI support
+import java.text.*;               // date formats
+import java.util.*;               // dates
+import java.util.concurrent.TimeUnit; // units for results
+import javax.swing.*;             // newer Java GUI support
+import org.openjdk.jmh.annotations.*; // JMH benchmark annotations
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+public class ShowDateTime1JmhLabel
+{
+  /* instance variables */
+
+  JLabel htmlLabel;               // Swing label with HTML text
+  String[] htmlStrings;           // default text, changing each second
+  JPanel htmlPanel;               // parent of <htmlLabel>, for layout
+  int index;                      // which string to use next
+  ShowDateTime1Label oursLabel;   // our label with HTML text
+  JPanel oursPanel;               // parent of <oursLabel>, for layout
+  JLabel plainLabel;              // Swing label with one line of text
+  JPanel plainPanel;              // parent of <plainLabel>, for layout
+  String[] plainStrings;          // default text as one line
+
+/*
+  setup() method
+
+  Make one minute of default text, and the labels to show it.
+*/
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    SimpleDateFormat format;      // program's default date format
+    int i;                        // index variable
+
+    format = new ShowDateTime1Options().formatDate;
+    htmlStrings = new String[ShowDateTime1Jmh.TEXT_COUNT];
+    plainStrings = new String[ShowDateTime1Jmh.TEXT_COUNT];
+    for (i = 0; i < ShowDateTime1Jmh.TEXT_COUNT; i ++)
+    {
+      htmlStrings[i] = format.format(new Date(ShowDateTime1Jmh.START_TIME
+        + (i * 1000L)));
+      plainStrings[i] = ShowDateTime1Stream.plainText(htmlStrings[i]);
+    }
+    htmlLabel = new JLabel(htmlStrings[0], JLabel.CENTER);
+    htmlPanel = panel(htmlLabel);
+    index = 0;
+    oursLabel = new ShowDateTime1Label(htmlStrings[0], JLabel.CENTER);
+    oursPanel = panel(oursLabel);
+    plainLabel = new JLabel(plainStrings[0], JLabel.CENTER);
+    plainPanel = panel(plainLabel);
+  }
+
+/*
+  next() method
+
+  Return the index of the next string, so the text always changes.
+*/
+  int next()
+  {
+    index = (index + 1) % ShowDateTime1Jmh.TEXT_COUNT;
+    return(index);
+  }
+
+/*
+  panel() method
+
+  Put a label in a panel the size of the default window, and lay it out.
+*/
+  static JPanel panel(JLabel label)
+  {
+    JPanel result;                // new panel
+
+    label.setFont(new Font("Dialog", Font.PLAIN, 36));
+    label.setOpaque(true);
+    result = new JPanel(new BorderLayout());
+    result.add(label, BorderLayout.CENTER);
+    result.setSize(400, 150);     // default window size
+    result.validate();
+    return(result);
+  }
+
+/*
+  setLabel() method
+
+  Give a label new text, lay out its panel, and return the preferred width.
+*/
+  static int setLabel(JLabel label, JPanel panel, String text)
+  {
+    label.setText(text);
+    panel.validate();             // layout, if anything is invalid
+    return(label.getPreferredSize().width);
+  }
+
+  /* benchmarks, one label change each */
+
+  @Benchmark
+  public int labelHtml()
+  {
+    return(setLabel(htmlLabel, htmlPanel, htmlStrings[next()]));
+  }
+
+  @Benchmark
+  public int labelOurs()
+  {
+    return(setLabel(oursLabel, oursPanel, htmlStrings[next()]));
+  }
+
+  @Benchmark
+  public int labelPlain()
+  {
+    return(setLabel(plainLabel, plainPanel, plainStrings[next()]));
+  }
+
+} // end of ShowDateTime1JmhLabel class
+
+/* Copyright (c) 2010 by Keith Fenske.  Apache License or GNU GPL. */